@@ -0,0 +1,62 @@
+package org.openmrs.addonindex.scheduled;
+
+import static org.openmrs.addonindex.TestUtil.getFileAsString;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmrs.addonindex.domain.AddOnVersion;
+
+/**
+ * handleConfigXml runs once for every OMOD version we haven't indexed before
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandleConfigXmlBenchmark {
+
+	// the fixtures in src/test/resources
+	@Param({
+			"config.withNoRequirements.xml",
+			"config.withRequiredVersion.xml",
+			"config.withRequiredModules.xml",
+			"config.withCommentedDoctype.xml",
+			"config.withRelativePathDtd.xml",
+			"config.withRelativePathDtdOnTwoLines.xml"
+	})
+	String fixture;
+
+	byte[] configXml;
+
+	FetchDetailsToIndex task;
+
+	@Setup
+	public void setUp() throws Exception {
+		configXml = getFileAsString(fixture).getBytes(StandardCharsets.UTF_8);
+		task = new FetchDetailsToIndex(null, null, null, new SimpleMeterRegistry());
+	}
+
+	@Benchmark
+	public AddOnVersion handleConfigXml() throws Exception {
+		AddOnVersion version = new AddOnVersion();
+		task.handleConfigXml(new ByteArrayInputStream(configXml), version);
+		return version;
+	}
+
+}
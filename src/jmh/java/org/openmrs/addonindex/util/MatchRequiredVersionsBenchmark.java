@@ -0,0 +1,46 @@
+package org.openmrs.addonindex.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * matchRequiredVersions runs for every version of an add-on whenever a client asks for the latest version supported by
+ * their core version
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchRequiredVersionsBenchmark {
+
+	// requireOpenmrsVersion values as they appear in config.xml files
+	@Param({
+			"1.9.0",
+			"1.9.9 - 1.9.*",
+			"1.11.3, 1.10.2 - 1.10.*, 1.9.9 - 1.9.*",
+			"2.0.0 - 2.*",
+			"1.9.0-SNAPSHOT"
+	})
+	String requireOpenmrsVersion;
+
+	@Param({ "1.9.12", "2.3.1" })
+	String coreVersion;
+
+	@Benchmark
+	public boolean matchRequiredVersions() {
+		return OpenmrsVersionCompareUtil.matchRequiredVersions(coreVersion, requireOpenmrsVersion);
+	}
+
+}
@@ -0,0 +1,85 @@
+package org.openmrs.addonindex.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Version is parsed for every add-on version we index, and compared/hashed whenever versions are sorted or looked up
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionBenchmark {
+
+	// the shapes of version strings we actually see in add-on and core releases
+	static final String[] VERSION_STRINGS = {
+			"1.0", "2.3.1", "1.9.12", "2.0.0-SNAPSHOT", "1.10.0-beta", "2.1.0-RC1", "3.0.0-alpha",
+			"1.2.3.4", "0.9", "2.24.0", "1.11.6", "4.1.0-20210401.123456-1"
+	};
+
+	@Param({ "1000" })
+	int listSize;
+
+	Version left;
+
+	Version right;
+
+	List<Version> shuffled;
+
+	@Setup
+	public void setUp() {
+		left = new Version("2.3.1");
+		right = new Version("2.3.1-SNAPSHOT");
+
+		Random random = new Random(42);
+		shuffled = new ArrayList<>(listSize);
+		for (int i = 0; i < listSize; i++) {
+			shuffled.add(new Version(random.nextInt(3) + "." + random.nextInt(25) + "." + random.nextInt(15)
+					+ (random.nextInt(5) == 0 ? "-SNAPSHOT" : "")));
+		}
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) {
+		for (String version : VERSION_STRINGS) {
+			blackhole.consume(new Version(version));
+		}
+	}
+
+	@Benchmark
+	public int compareTo() {
+		return left.compareTo(right);
+	}
+
+	@Benchmark
+	public int hashCodeOfVersion() {
+		return left.hashCode();
+	}
+
+	@Benchmark
+	public List<Version> sortList() {
+		List<Version> copy = new ArrayList<>(shuffled);
+		Collections.sort(copy);
+		return copy;
+	}
+
+}
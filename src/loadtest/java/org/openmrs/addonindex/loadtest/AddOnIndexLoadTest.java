@@ -0,0 +1,145 @@
+package org.openmrs.addonindex.loadtest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.openmrs.addonindex.scheduled.FetchDetailsToIndex;
+import org.openmrs.addonindex.service.InMemoryIndex;
+import org.openmrs.addonindex.service.IndexingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Indexes thousands of synthetic add-ons from {@link BackendStubs} into the {@link InMemoryIndex}, then runs
+ * {@link RequestMix} against the application and reports indexing throughput, and throughput and latency per endpoint,
+ * to stdout and target/loadtest-report.json. Everything it can be tuned with is a system property, see README.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		// we drive indexing ourselves
+		"scheduler.fetch_core_versions_list.initial_delay=" + AddOnIndexLoadTest.NEVER,
+		"scheduler.fetch_add_on_list.initial_delay=" + AddOnIndexLoadTest.NEVER,
+		"scheduler.fetch_details_to_index.initial_delay=" + AddOnIndexLoadTest.NEVER,
+		"scheduler.fetch_changed_details_to_index.initial_delay=" + AddOnIndexLoadTest.NEVER,
+		"scheduler.save_indexing_journal.period=" + AddOnIndexLoadTest.NEVER,
+		"scheduler.analysis.count_top_downloads.initial_delay=" + AddOnIndexLoadTest.NEVER,
+		"index.backend=memory",
+		"core_version_list.strategy=LOCAL",
+		"add_on_list.strategy=LOCAL",
+		// so that Artifactory uses AQL, like production does
+		"artifactory.api_key=loadtest",
+		"scheduler.fetch_details_to_index.concurrency=${loadtest.concurrency:8}",
+		"logging.level.org.openmrs.addonindex=WARN"
+})
+public class AddOnIndexLoadTest {
+
+	static final String NEVER = "86400000";
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private InMemoryIndex index;
+
+	@Autowired
+	private IndexingService indexingService;
+
+	@Autowired
+	private FetchDetailsToIndex fetchDetailsToIndex;
+
+	@Autowired
+	private BackendStubs backendStubs;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${loadtest.addons:2000}")
+	private int addOns;
+
+	@Value("${loadtest.clients:16}")
+	private int clients;
+
+	@Value("${loadtest.warmup:2000}")
+	private int warmup;
+
+	@Value("${loadtest.requests:20000}")
+	private int requests;
+
+	@Value("${loadtest.concurrency:8}")
+	private int concurrency;
+
+	@Value("${threads.virtual}")
+	private boolean virtualThreads;
+
+	@Value("${loadtest.report:target/loadtest-report.json}")
+	private String reportFile;
+
+	@Test
+	public void testIndexingAndRequestMix() throws Exception {
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("addOns", addOns);
+		report.put("virtualThreads", virtualThreads);
+		report.put("clients", clients);
+
+		indexingService.setAllToIndex(SyntheticAddOns.generate(addOns));
+		long started = System.nanoTime();
+		fetchDetailsToIndex.run();
+		double seconds = (System.nanoTime() - started) / 1e9;
+
+		long failed = indexingService.getIndexingStatus().getStatuses().values().stream()
+				.filter(status -> status.getError() != null)
+				.count();
+		// if the stubs drift from what the backends expect, add-ons still index, just without versions
+		long withoutVersions = indexingService.getAllToIndex().getToIndex().stream()
+				.map(toIndex -> index.getByUid(toIndex.getUid()))
+				.filter(indexed -> indexed == null || indexed.getVersions().isEmpty())
+				.count();
+		Map<String, Object> indexing = new LinkedHashMap<>();
+		indexing.put("concurrency", concurrency);
+		indexing.put("seconds", Math.round(seconds * 10) / 10.0);
+		indexing.put("addOnsPerSecond", Math.round(addOns / seconds * 10) / 10.0);
+		indexing.put("backendRequests", backendStubs.getRequests());
+		indexing.put("errors", failed);
+		indexing.put("withoutVersions", withoutVersions);
+		report.put("indexing", indexing);
+
+		Map<String, Map<String, Object>> endpoints = new RequestMix("http://localhost:" + port, addOns)
+				.run(clients, warmup, requests);
+		report.put("endpoints", endpoints);
+
+		String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+		System.out.println("Load test report:\n" + json);
+		File file = new File(reportFile);
+		file.getAbsoluteFile().getParentFile().mkdirs();
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+
+		assertThat(failed, is(0L));
+		assertThat(withoutVersions, is(0L));
+		endpoints.forEach((name, result) -> assertThat(name + " errors", result.get("errors"), is(0L)));
+	}
+
+	@TestConfiguration
+	static class StandIns {
+
+		@Bean(initMethod = "start", destroyMethod = "stop")
+		public BackendStubs backendStubs(@Value("${loadtest.backend_threads:50}") int threads) {
+			return new BackendStubs(threads);
+		}
+
+		@Bean
+		public RestTemplateCustomizer redirectToBackendStubs(BackendStubs backendStubs) {
+			return restTemplate -> restTemplate.getInterceptors().add(new RedirectToBackendStubs(backendStubs));
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+package org.openmrs.addonindex.loadtest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import org.openmrs.addonindex.TestUtil;
+
+/**
+ * Stands in for Artifactory, Nexus, Bintray and Modulus. Every response is one of the fixtures in src/test/resources,
+ * with the add-on that fixture was captured for replaced by whichever synthetic add-on was asked about, so any number
+ * of add-ons can be indexed without hitting the real services. Module downloads are small zips whose config.xml is
+ * config.withRequiredVersion.xml.
+ */
+public class BackendStubs {
+
+	private static final Pattern AQL_PATH = Pattern.compile("\"path\": \\{\"\\$match\": \"[^\"]*/([^\"/]+)/\\*\"}");
+
+	private static final Pattern ARTIFACTORY_STORAGE = Pattern.compile(
+			"/artifactory/api/storage/[^/]+/.*/([^/]+)/[^/]+/[^/]+");
+
+	private static final Pattern BINTRAY_PACKAGE = Pattern.compile("/api/v1/packages/[^/]+/[^/]+/([^/?]+)(/.*)?");
+
+	private static final Pattern MODULUS_MODULE = Pattern.compile("/modulus/api/modules/([^/?]+)(/releases)?");
+
+	private static final Pattern MODULE_FILE = Pattern.compile(".*/(.+?)(-omod)?-[0-9.]+\\.(jar|omod)");
+
+	private final WireMockServer server;
+
+	private final LongAdder requests = new LongAdder();
+
+	private final Map<String, String> fixtures = new ConcurrentHashMap<>();
+
+	private final Map<String, byte[]> moduleZips = new ConcurrentHashMap<>();
+
+	public BackendStubs(int threads) {
+		server = new WireMockServer(options()
+				.dynamicPort()
+				.containerThreads(threads)
+				.disableRequestJournal()
+				.extensions(new FixtureResponses()));
+	}
+
+	public void start() {
+		server.start();
+		// everything goes through FixtureResponses
+		server.stubFor(any(anyUrl()).willReturn(aResponse().withStatus(404)));
+	}
+
+	public void stop() {
+		server.stop();
+	}
+
+	public int getPort() {
+		return server.port();
+	}
+
+	/**
+	 * @return how many requests the backends have served
+	 */
+	public long getRequests() {
+		return requests.sum();
+	}
+
+	private ResponseDefinition respond(Request request) {
+		String url = request.getUrl();
+		String path = url.contains("?") ? url.substring(0, url.indexOf('?')) : url;
+		Matcher m;
+
+		if (path.equals("/artifactory/api/search/aql")) {
+			m = AQL_PATH.matcher(request.getBodyAsString());
+			return m.find() ? json(fixture("artifactory-aql-response.json", "fhir2-omod", m.group(1))) : notFound();
+		}
+		if (path.equals("/artifactory/api/search/gavc")) {
+			return json(fixture("artifactory-gavc-uri.json", "fhir2-omod", queryParam(url, "a")));
+		}
+		if ((m = ARTIFACTORY_STORAGE.matcher(path)).matches()) {
+			return json(fixture("artifactory-gavc-module.json", "fhir2-omod", m.group(1)));
+		}
+		if (path.endsWith("/index_content/")) {
+			return xml(fixture("indexBrowserTreeViewResponse.xml", "appui-omod", queryParam(url, "artifactIdHint")));
+		}
+		if (path.equals("/statistics/packageGeoStats")) {
+			return json(fixture("bintray-download-counts.json", null, null));
+		}
+		if ((m = BINTRAY_PACKAGE.matcher(path)).matches()) {
+			String fixture = m.group(2) == null ? "bintray-package.json" : "bintray-version-files.json";
+			return json(fixture(fixture, "openmrs-owa-conceptdictionary", m.group(1)));
+		}
+		if ((m = MODULUS_MODULE.matcher(path)).matches()) {
+			String fixture = m.group(2) == null ? "modulus-module.json" : "modulus-releases.json";
+			return json(fixture(fixture, "addresshierarchy", m.group(1)));
+		}
+		if ((m = MODULE_FILE.matcher(path)).matches()) {
+			return aResponse().withStatus(200).withHeader("Content-Type", "application/java-archive")
+					.withBody(moduleZips.computeIfAbsent(m.group(1), this::moduleZip)).build();
+		}
+		return notFound();
+	}
+
+	private String fixture(String name, String original, String replacement) {
+		String content = fixtures.computeIfAbsent(name, resource -> {
+			try {
+				return TestUtil.getFileAsString(resource);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		});
+		return original == null ? content : content.replace(original, replacement);
+	}
+
+	private byte[] moduleZip(String moduleId) {
+		String configXml = fixture("config.withRequiredVersion.xml", "${project.parent.artifactId}", moduleId)
+				.replace("${project.parent.groupId}", "org.openmrs.module");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry("config.xml"));
+			zip.write(configXml.getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return bytes.toByteArray();
+	}
+
+	private String queryParam(String url, String name) {
+		Matcher m = Pattern.compile("[?&]" + name + "=([^&]+)").matcher(url);
+		return m.find() ? m.group(1) : "";
+	}
+
+	private ResponseDefinition json(String body) {
+		return aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(body).build();
+	}
+
+	private ResponseDefinition xml(String body) {
+		return aResponse().withStatus(200).withHeader("Content-Type", "application/xml").withBody(body).build();
+	}
+
+	private ResponseDefinition notFound() {
+		return aResponse().withStatus(404).build();
+	}
+
+	private class FixtureResponses extends ResponseDefinitionTransformer {
+
+		@Override
+		public ResponseDefinition transform(Request request, ResponseDefinition responseDefinition, FileSource files,
+		                                    Parameters parameters) {
+			requests.increment();
+			return respond(request);
+		}
+
+		@Override
+		public String getName() {
+			return "fixture-responses";
+		}
+	}
+
+}
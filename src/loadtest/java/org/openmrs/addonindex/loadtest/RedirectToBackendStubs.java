@@ -0,0 +1,51 @@
+package org.openmrs.addonindex.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Sends requests that the backends make to the real services to {@link BackendStubs} instead. Anything else (which
+ * would be a mistake in the load test) is left alone, and will fail loudly since the sandbox shouldn't reach them.
+ */
+public class RedirectToBackendStubs implements ClientHttpRequestInterceptor {
+
+	static final List<String> HOSTS = Arrays.asList("openmrs.jfrog.io", "bintray.com", "dl.bintray.com",
+			"modules.openmrs.org", "mavenrepo.openmrs.org");
+
+	private final BackendStubs backendStubs;
+
+	public RedirectToBackendStubs(BackendStubs backendStubs) {
+		this.backendStubs = backendStubs;
+	}
+
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+		if (!HOSTS.contains(request.getURI().getHost())) {
+			return execution.execute(request, body);
+		}
+		URI redirected = UriComponentsBuilder.fromUri(request.getURI())
+				.scheme("http")
+				.host("localhost")
+				.port(backendStubs.getPort())
+				.build(true)
+				.toUri();
+		return execution.execute(new HttpRequestWrapper(request) {
+
+			@Override
+			public URI getURI() {
+				return redirected;
+			}
+		}, body);
+	}
+
+}
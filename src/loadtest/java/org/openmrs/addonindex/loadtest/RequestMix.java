@@ -0,0 +1,156 @@
+package org.openmrs.addonindex.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * A weighted mix of the requests that clients make most: searches from the UI, the legacy findModules and update.rdf
+ * endpoints that older OpenMRS versions still call, and lists. Each endpoint's latency goes into its own histogram.
+ */
+public class RequestMix {
+
+	private final String baseUrl;
+
+	private final int addOnCount;
+
+	private final HttpClient client;
+
+	private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+	private int totalWeight;
+
+	public RequestMix(String baseUrl, int addOnCount) {
+		this.baseUrl = baseUrl;
+		this.addOnCount = addOnCount;
+		this.client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10))
+				.build();
+
+		add("search", 35, i -> "/api/v1/addon?q=" + (i % 3 == 0
+				? "org.openmrs.module." + SyntheticAddOns.moduleId(omod(i)) : SyntheticAddOns.word(i)));
+		add("findModules", 20, i -> "/modules/findModules?sEcho=1&iDisplayStart=0&iDisplayLength=15&sSearch="
+				+ SyntheticAddOns.word(i) + "&openmrs_version=1.11.3");
+		add("update.rdf", 30, i -> "/modulus/feeds/" + SyntheticAddOns.moduleId(omod(i)) + "/update.rdf");
+		add("list", 15, i -> "/api/v1/list/loadtest-list-" + i % SyntheticAddOns.LIST_COUNT);
+	}
+
+	private void add(String name, int weight, IntFunction<String> path) {
+		endpoints.put(name, new Endpoint(weight, path));
+		totalWeight += weight;
+	}
+
+	private int omod(int i) {
+		// see SyntheticAddOns, these are the only OWAs
+		return i % 10 == 2 ? i - 1 : i;
+	}
+
+	/**
+	 * @param clients  how many clients send requests at the same time, each waiting for a response before sending the
+	 *                 next request
+	 * @param warmup   requests to send before we start measuring
+	 * @param requests requests to measure
+	 * @return per endpoint: requests, errors, throughput and latency percentiles
+	 */
+	public Map<String, Map<String, Object>> run(int clients, int warmup, int requests) throws Exception {
+		send(clients, warmup, false);
+		long started = System.nanoTime();
+		send(clients, requests, true);
+		double seconds = (System.nanoTime() - started) / 1e9;
+
+		Map<String, Map<String, Object>> report = new LinkedHashMap<>();
+		endpoints.forEach((name, endpoint) -> report.put(name, endpoint.report(seconds)));
+		return report;
+	}
+
+	private void send(int clients, int requests, boolean record) throws Exception {
+		AtomicInteger remaining = new AtomicInteger(requests);
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		try {
+			List<Future<?>> running = new ArrayList<>();
+			for (int c = 0; c < clients; c++) {
+				Random random = new Random(c);
+				running.add(executor.submit(() -> {
+					while (remaining.getAndDecrement() > 0) {
+						sendOne(random, record);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : running) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+	private void sendOne(Random random, boolean record) throws Exception {
+		int pick = random.nextInt(totalWeight);
+		for (Endpoint endpoint : endpoints.values()) {
+			pick -= endpoint.weight;
+			if (pick < 0) {
+				HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl
+						+ endpoint.path.apply(random.nextInt(addOnCount)))).build();
+				long start = System.nanoTime();
+				HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+				long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+				if (record) {
+					endpoint.latencyMicros.recordValue(micros);
+					if (response.statusCode() != 200) {
+						endpoint.errors.increment();
+					}
+				}
+				return;
+			}
+		}
+	}
+
+	private static class Endpoint {
+
+		private final int weight;
+
+		private final IntFunction<String> path;
+
+		private final Histogram latencyMicros = new ConcurrentHistogram(3);
+
+		private final LongAdder errors = new LongAdder();
+
+		Endpoint(int weight, IntFunction<String> path) {
+			this.weight = weight;
+			this.path = path;
+		}
+
+		Map<String, Object> report(double seconds) {
+			Map<String, Object> report = new LinkedHashMap<>();
+			report.put("requests", latencyMicros.getTotalCount());
+			report.put("errors", errors.sum());
+			report.put("throughputPerSecond", Math.round(latencyMicros.getTotalCount() / seconds * 10) / 10.0);
+			report.put("p50Millis", latencyMicros.getValueAtPercentile(50) / 1000.0);
+			report.put("p99Millis", latencyMicros.getValueAtPercentile(99) / 1000.0);
+			report.put("maxMillis", latencyMicros.getMaxValue() / 1000.0);
+			return report;
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+package org.openmrs.addonindex.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openmrs.addonindex.backend.Artifactory;
+import org.openmrs.addonindex.backend.Bintray;
+import org.openmrs.addonindex.backend.Modulus;
+import org.openmrs.addonindex.backend.OpenmrsMavenRepo;
+import org.openmrs.addonindex.domain.AddOnList;
+import org.openmrs.addonindex.domain.AddOnReference;
+import org.openmrs.addonindex.domain.AddOnStatus;
+import org.openmrs.addonindex.domain.AddOnToIndex;
+import org.openmrs.addonindex.domain.AddOnType;
+import org.openmrs.addonindex.domain.AllAddOnsToIndex;
+import org.openmrs.addonindex.domain.backend.BintrayPackageDetails;
+import org.openmrs.addonindex.domain.backend.MavenRepoDetails;
+import org.openmrs.addonindex.domain.backend.ModulusModuleDetails;
+
+/**
+ * Generates an add-on list of any size, spread over the backends roughly like the real one: mostly OMODs in
+ * Artifactory, the rest split between Nexus, Modulus and OWAs on Bintray.
+ */
+public class SyntheticAddOns {
+
+	static final List<String> WORDS = Arrays.asList("patient", "order", "report", "form", "concept", "lab", "billing",
+			"appointment", "radiology", "pharmacy", "registration", "queue", "referral", "allergy", "vitals");
+
+	static final int LIST_COUNT = 10;
+
+	static final int LIST_SIZE = 25;
+
+	public static AllAddOnsToIndex generate(int count) {
+		AllAddOnsToIndex all = new AllAddOnsToIndex();
+		for (int i = 0; i < count; i++) {
+			all.getToIndex().add(addOn(i));
+		}
+		for (int i = 0; i < LIST_COUNT; i++) {
+			AddOnList list = new AddOnList();
+			list.setUid("loadtest-list-" + i);
+			list.setName("Load test list " + i);
+			list.setAddOns(new ArrayList<>());
+			for (int j = 0; j < LIST_SIZE; j++) {
+				AddOnReference reference = new AddOnReference();
+				reference.setUid(all.getToIndex().get((i * LIST_SIZE + j) % count).getUid());
+				list.getAddOns().add(reference);
+			}
+			all.getLists().add(list);
+		}
+		return all;
+	}
+
+	static String moduleId(int i) {
+		return "loadtest" + i;
+	}
+
+	static String word(int i) {
+		return WORDS.get(i % WORDS.size());
+	}
+
+	private static AddOnToIndex addOn(int i) {
+		AddOnToIndex addOn = new AddOnToIndex();
+		addOn.setName("Load Test " + capitalize(word(i)) + " " + i);
+		addOn.setDescription("Synthetic " + word(i) + " add-on for load testing, number " + i);
+		addOn.setTags(Arrays.asList(word(i), word(i / WORDS.size())));
+		addOn.setStatus(i % 10 == 9 ? AddOnStatus.DEPRECATED : i % 10 == 8 ? AddOnStatus.INACTIVE : AddOnStatus.ACTIVE);
+
+		switch (i % 10) {
+			case 0:
+				MavenRepoDetails nexus = new MavenRepoDetails();
+				nexus.setGroupId("org.openmrs.module");
+				nexus.setArtifactId(moduleId(i) + "-omod");
+				addOn.setMavenRepoDetails(nexus);
+				addOn.setBackend(OpenmrsMavenRepo.class);
+				addOn.setType(AddOnType.OMOD);
+				addOn.setUid("org.openmrs.module." + moduleId(i));
+				break;
+			case 1:
+				addOn.setModulusDetails(new ModulusModuleDetails(moduleId(i)));
+				addOn.setBackend(Modulus.class);
+				addOn.setType(AddOnType.OMOD);
+				addOn.setUid("org.openmrs.module." + moduleId(i));
+				break;
+			case 2:
+				addOn.setBintrayPackageDetails(new BintrayPackageDetails("openmrs", "owa", "openmrs-owa-" + moduleId(i)));
+				addOn.setBackend(Bintray.class);
+				addOn.setType(AddOnType.OWA);
+				addOn.setUid("org.openmrs.owa." + moduleId(i));
+				break;
+			default:
+				MavenRepoDetails artifactory = new MavenRepoDetails();
+				artifactory.setGroupId("org.openmrs.module");
+				artifactory.setArtifactId(moduleId(i));
+				addOn.setMavenRepoDetails(artifactory);
+				addOn.setBackend(Artifactory.class);
+				addOn.setType(AddOnType.OMOD);
+				addOn.setUid("org.openmrs.module." + moduleId(i));
+		}
+		return addOn;
+	}
+
+	private static String capitalize(String word) {
+		return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+	}
+
+}
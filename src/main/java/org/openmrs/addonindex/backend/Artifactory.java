@@ -2,11 +2,15 @@ package org.openmrs.addonindex.backend;
 
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.regex.Matcher;
@@ -38,7 +42,7 @@ import org.springframework.web.client.RestTemplate;
  */
 @Component
 @Slf4j
-public class Artifactory implements BackendHandler {
+public class Artifactory implements BackendHandler, SupportsChangeDetection {
 
 	public static final String ARTIFACTORY_URL = "https://openmrs.jfrog.io/artifactory";
 
@@ -58,6 +62,14 @@ public class Artifactory implements BackendHandler {
 			+ "{\"name\": {\"$match\" : \"%2$s*.omod\"}}"
 			+ "] }).include(\"name\", \"repo\", \"path\", \"created\", \"stat.downloads\")";
 
+	private static final String AQL_CHANGED_SINCE_TEMPLATE = "items.find({"
+			+ "\"$and\": ["
+			+ "{\"repo\": {\"$nmatch\": \"*snapshots\"}},"
+			+ "{\"$or\": [{\"created\": {\"$gt\": \"%1$s\"}}, {\"modified\": {\"$gt\": \"%1$s\"}}]},"
+			+ "{\"$or\": [{\"name\": {\"$match\": \"*.omod\"}}, {\"name\": {\"$match\": \"*.jar\"}},"
+			+ " {\"name\": {\"$match\": \"*.zip\"}}]}"
+			+ "] }).include(\"name\", \"repo\", \"path\")";
+
 	protected static final String GAVC_URL = ARTIFACTORY_URL + "/api/search/gavc?g={g}&a={a}&repos={repos}";
 
 	private static final Pattern OMOD_RELEASED_VERSION_JAR = Pattern
@@ -102,6 +114,48 @@ public class Artifactory implements BackendHandler {
 		return result;
 	}
 
+	/**
+	 * Runs a single AQL query for everything released since the given time, across all repositories. This needs the API
+	 * key, since the public GAVC API has no way of asking this.
+	 */
+	@Override
+	public Set<String> findChangedSince(Collection<AddOnToIndex> addOns, OffsetDateTime since) {
+		if (artifactoryApiKey == null || artifactoryApiKey.isEmpty()) {
+			return null;
+		}
+
+		ResponseEntity<AqlSearchResponse> responseEntity = postAqlQuery(
+				String.format(AQL_CHANGED_SINCE_TEMPLATE, DateTimeFormatter.ISO_INSTANT.format(since)));
+		if (responseEntity == null || !responseEntity.getStatusCode().is2xxSuccessful()
+				|| responseEntity.getBody() == null) {
+			log.warn("Could not check {} for artifacts changed since {}", AQL_URL, since);
+			return null;
+		}
+
+		// artifact paths look like org/openmrs/module/appui-omod/1.6, so the parent folder identifies the artifact
+		Set<String> changedArtifacts = new HashSet<>();
+		for (AqlArtifactInfo info : responseEntity.getBody().getResults()) {
+			int versionFolder = info.getPath().lastIndexOf('/');
+			if (versionFolder > 0) {
+				changedArtifacts.add(info.getPath().substring(0, versionFolder).toLowerCase(Locale.ROOT));
+			}
+		}
+
+		Set<String> changed = new HashSet<>();
+		for (AddOnToIndex addOn : addOns) {
+			if (addOn.getMavenRepoDetails() == null) {
+				continue;
+			}
+			String groupPath = addOn.getMavenRepoDetails().getGroupId().replace(".", "/").toLowerCase(Locale.ROOT);
+			String artifact = addOn.getMavenRepoDetails().getArtifactId().toLowerCase(Locale.ROOT);
+			if (changedArtifacts.contains(groupPath + "/" + artifact)
+					|| changedArtifacts.contains(groupPath + "/" + artifact + "-omod")) {
+				changed.add(addOn.getUid());
+			}
+		}
+		return changed;
+	}
+
 	private AddOnInfoAndVersions getInfoAndVersionsAql(AddOnToIndex addOnToIndex) {
 		AddOnInfoAndVersions result = AddOnInfoAndVersions.from(addOnToIndex);
 
@@ -126,19 +180,8 @@ public class Artifactory implements BackendHandler {
 	private List<AddOnVersion> runAqlQueryFor(AddOnToIndex addOnToIndex, String groupPath, String artifact) {
 		final List<AddOnVersion> result = new ArrayList<>();
 		final String AQL_SEARCH_TEMPLATE = artifact.endsWith("-omod") ? AQL_SEARCH_TEMPLATE_JAR : AQL_SEARCH_TEMPLATE_OMOD;
-		final String requestBody = String.format(AQL_SEARCH_TEMPLATE, groupPath, artifact);
-
-		ResponseEntity<AqlSearchResponse> responseEntity = restTemplate.execute(
-				AQL_URL, HttpMethod.POST, request -> {
-					byte[] content = requestBody.getBytes(StandardCharsets.UTF_8);
-
-					HttpHeaders headers = request.getHeaders();
-					headers.add(HttpHeaders.AUTHORIZATION, "Bearer " + artifactoryApiKey);
-					headers.add(HttpHeaders.CONTENT_TYPE, "text/plain");
-					headers.add(HttpHeaders.CONTENT_LENGTH, "" + content.length);
-
-					request.getBody().write(content);
-				}, restTemplate.responseEntityExtractor(AqlSearchResponse.class));
+		ResponseEntity<AqlSearchResponse> responseEntity = postAqlQuery(
+				String.format(AQL_SEARCH_TEMPLATE, groupPath, artifact));
 
 		if (responseEntity == null) {
 			log.error("Did not receive a result for {}:{} from AQL API",
@@ -180,6 +223,20 @@ public class Artifactory implements BackendHandler {
 		return result;
 	}
 
+	private ResponseEntity<AqlSearchResponse> postAqlQuery(String query) {
+		return restTemplate.execute(
+				AQL_URL, HttpMethod.POST, request -> {
+					byte[] content = query.getBytes(StandardCharsets.UTF_8);
+
+					HttpHeaders headers = request.getHeaders();
+					headers.add(HttpHeaders.AUTHORIZATION, "Bearer " + artifactoryApiKey);
+					headers.add(HttpHeaders.CONTENT_TYPE, "text/plain");
+					headers.add(HttpHeaders.CONTENT_LENGTH, "" + content.length);
+
+					request.getBody().write(content);
+				}, restTemplate.responseEntityExtractor(AqlSearchResponse.class));
+	}
+
 	private AddOnInfoAndVersions getInfoAndVersionsGavc(AddOnToIndex addOnToIndex) {
 		AddOnInfoAndVersions result = AddOnInfoAndVersions.from(addOnToIndex);
 
@@ -10,19 +10,16 @@
 
 package org.openmrs.addonindex.backend;
 
-import java.io.IOException;
 import java.time.OffsetDateTime;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnToIndex;
 import org.openmrs.addonindex.domain.AddOnVersion;
 import org.openmrs.addonindex.domain.BintrayGeoStats;
 import org.openmrs.addonindex.domain.backend.BintrayPackageDetails;
+import org.openmrs.addonindex.domain.bintray.BintrayFile;
+import org.openmrs.addonindex.domain.bintray.BintrayPackage;
 import org.openmrs.addonindex.util.Version;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -37,8 +34,6 @@ public class Bintray implements BackendHandler, SupportsDownloadCounts {
 
 	private final RestTemplateBuilder restTemplateBuilder;
 
-	private final ObjectMapper objectMapper;
-
 	@Value("${bintray.username}")
 	private String bintrayUsername;
 	
@@ -46,9 +41,8 @@ public class Bintray implements BackendHandler, SupportsDownloadCounts {
 	private String bintrayApiKey;
 	
 	@Autowired
-	public Bintray(RestTemplateBuilder restTemplateBuilder, ObjectMapper objectMapper) {
+	public Bintray(RestTemplateBuilder restTemplateBuilder) {
 		this.restTemplateBuilder = restTemplateBuilder;
-		this.objectMapper = objectMapper;
 	}
 	
 	@Override
@@ -58,15 +52,14 @@ public class Bintray implements BackendHandler, SupportsDownloadCounts {
 		}
 
 		String url = packageUrlFor(addOnToIndex);
-		ResponseEntity<String> entity = restTemplateBuilder.basicAuthentication(bintrayUsername, bintrayApiKey).build()
-				.getForEntity(url, String.class);
+		ResponseEntity<BintrayPackage> entity = restTemplateBuilder.basicAuthentication(bintrayUsername, bintrayApiKey)
+				.build().getForEntity(url, BintrayPackage.class);
 
 		if (!entity.getStatusCode().is2xxSuccessful()) {
 			log.warn("Problem fetching {} -> {} {}", url, entity.getStatusCode(), entity.getBody());
 			return null;
 		} else {
-			String json = entity.getBody();
-			return handlePackageJson(addOnToIndex, json);
+			return handlePackage(addOnToIndex, entity.getBody());
 		}
 	}
 
@@ -77,11 +70,9 @@ public class Bintray implements BackendHandler, SupportsDownloadCounts {
 		log.info("Fetching Download Counts for {}", toIndex.getUid());
 		BintrayGeoStats downloadCounts;
 		Integer totalDownloadCounts;
-		String json;
 		String downloadStatsUrl = downloadCountUrlFor(toIndex);
 		try {
-			json = restTemplateBuilder.build().getForObject(downloadStatsUrl, String.class);
-			downloadCounts = objectMapper.readValue(json, BintrayGeoStats.class);
+			downloadCounts = restTemplateBuilder.build().getForObject(downloadStatsUrl, BintrayGeoStats.class);
 			totalDownloadCounts = handleBintrayGeoStats(toIndex, downloadCounts);
 			infoAndVersions.setDownloadCountInLast30Days(totalDownloadCounts);
 		} catch (Exception ex) {
@@ -89,40 +80,42 @@ public class Bintray implements BackendHandler, SupportsDownloadCounts {
 		}
 	}
 
-	AddOnInfoAndVersions handlePackageJson(AddOnToIndex addOnToIndex, String packageJson) throws IOException {
+	AddOnInfoAndVersions handlePackage(AddOnToIndex addOnToIndex, BintrayPackage bintrayPackage) {
 		AddOnInfoAndVersions info = AddOnInfoAndVersions.from(addOnToIndex);
 		info.setHostedUrl(hostedUrlFor(addOnToIndex));
-		ObjectNode obj = objectMapper.readValue(packageJson, ObjectNode.class);
 
 		if (!StringUtils.hasText(info.getName())) {
-			info.setName(obj.get("name").asText(""));
+			info.setName(bintrayPackage.getName());
 		}
 
 		if (!StringUtils.hasText(info.getDescription())) {
-			info.setDescription(obj.get("desc").asText(""));
+			info.setDescription(bintrayPackage.getDesc());
+		}
+
+		if (bintrayPackage.getVersions() == null) {
+			return info;
 		}
 
 		String expectedFileExtension = "." + info.getType().getFileExtension();
-		for (JsonNode node : obj.path("versions")) {
-			String versionString = node.asText("");
+		for (String versionString : bintrayPackage.getVersions()) {
 			// TODO do we need to GET the version and make sure it's published?
-			ArrayNode arr = restTemplateBuilder.basicAuthentication(bintrayUsername, bintrayApiKey).build()
-					.getForObject(getVersionFilesUrlFor(addOnToIndex, versionString), ArrayNode.class);
+			BintrayFile[] files = restTemplateBuilder.basicAuthentication(bintrayUsername, bintrayApiKey).build()
+					.getForObject(getVersionFilesUrlFor(addOnToIndex, versionString), BintrayFile[].class);
 
-			if (arr != null) {
-				for (JsonNode fileNode : arr) {
-					if (fileNode.get("name").asText("").endsWith(expectedFileExtension)) {
+			if (files != null) {
+				for (BintrayFile file : files) {
+					if (file.getName() != null && file.getName().endsWith(expectedFileExtension)) {
 						// found the type of file we want, so assume this is the right file.
 						// TODO maybe test that it has the version number in it?
 						AddOnVersion version = new AddOnVersion();
 						version.setVersion(new Version(versionString));
-						version.setReleaseDatetime(OffsetDateTime.parse(fileNode.get("created").asText()));
-						version.setDownloadUri(downloadUriFor(addOnToIndex, fileNode.get("path").asText()));
+						version.setReleaseDatetime(OffsetDateTime.parse(file.getCreated()));
+						version.setDownloadUri(downloadUriFor(addOnToIndex, file.getPath()));
 						info.addVersion(version);
 						break;
 					}
 
-					log.debug("Skipping file: {}", arr.get("name").asText());
+					log.debug("Skipping file: {}", file.getName());
 				}
 			}
 		}
@@ -10,17 +10,14 @@
 
 package org.openmrs.addonindex.backend;
 
-import java.io.IOException;
 import java.time.OffsetDateTime;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnToIndex;
 import org.openmrs.addonindex.domain.AddOnVersion;
+import org.openmrs.addonindex.domain.modulus.ModulusModule;
+import org.openmrs.addonindex.domain.modulus.ModulusRelease;
 import org.openmrs.addonindex.util.Version;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -37,52 +34,47 @@ public class Modulus implements BackendHandler {
 
 	private final RestTemplateBuilder restTemplateBuilder;
 
-	private final ObjectMapper objectMapper;
-	
 	@Autowired
-	public Modulus(RestTemplateBuilder restTemplateBuilder, ObjectMapper objectMapper) {
+	public Modulus(RestTemplateBuilder restTemplateBuilder) {
 		this.restTemplateBuilder = restTemplateBuilder;
-		this.objectMapper = objectMapper;
 	}
 	
 	@Override
 	public AddOnInfoAndVersions getInfoAndVersionsFor(AddOnToIndex addOnToIndex) throws Exception {
 		String moduleUrl = moduleUrlFor(addOnToIndex);
-		ResponseEntity<String> entity = restTemplateBuilder.build().getForEntity(moduleUrl, String.class);
+		ResponseEntity<ModulusModule> entity = restTemplateBuilder.build().getForEntity(moduleUrl, ModulusModule.class);
 		if (!entity.getStatusCode().is2xxSuccessful()) {
 			log.warn("Problem fetching {} -> {} {}", moduleUrl, entity.getStatusCode(), entity.getBody());
 			return null;
 		} else {
-			String json = entity.getBody();
-			return handleModuleJson(addOnToIndex, json);
+			return handleModule(addOnToIndex, entity.getBody());
 		}
 	}
 	
-	AddOnInfoAndVersions handleModuleJson(AddOnToIndex addOnToIndex, String moduleJson) throws IOException {
+	AddOnInfoAndVersions handleModule(AddOnToIndex addOnToIndex, ModulusModule module) {
 		AddOnInfoAndVersions info = AddOnInfoAndVersions.from(addOnToIndex);
 		info.setHostedUrl(hostedUrlFor(addOnToIndex));
 
-		ObjectNode obj = objectMapper.readValue(moduleJson, ObjectNode.class);
-		
 		if (!StringUtils.hasText(info.getName())) {
-			info.setName(obj.get("name").asText());
+			info.setName(module.getName());
 		}
 		if (!StringUtils.hasText(info.getDescription())) {
-			info.setDescription(obj.get("description").asText());
+			info.setDescription(module.getDescription());
 		}
 		
-		ArrayNode releases = restTemplateBuilder.build().getForObject(releasesUrlFor(addOnToIndex), ArrayNode.class);
+		ModulusRelease[] releases = restTemplateBuilder.build().getForObject(releasesUrlFor(addOnToIndex),
+				ModulusRelease[].class);
 		if (releases != null) {
-			for (JsonNode releaseNode : releases) {
-				if (releaseNode.path("moduleVersion").isNull()) {
+			for (ModulusRelease release : releases) {
+				if (release.getModuleVersion() == null) {
 					log.debug("Invalid release in modulus for {}", addOnToIndex.getUid());
 					continue;
 				}
 
 				AddOnVersion version = new AddOnVersion();
-				version.setVersion(new Version(releaseNode.path("moduleVersion").asText()));
-				version.setReleaseDatetime(OffsetDateTime.parse(releaseNode.path("dateCreated").asText()));
-				version.setDownloadUri(releaseNode.path("downloadURL").asText());
+				version.setVersion(new Version(release.getModuleVersion()));
+				version.setReleaseDatetime(OffsetDateTime.parse(release.getDateCreated()));
+				version.setDownloadUri(release.getDownloadUrl());
 				info.addVersion(version);
 			}
 		}
@@ -10,11 +10,20 @@
 
 package org.openmrs.addonindex.backend;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
-import java.io.StringReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,10 +34,9 @@ import org.openmrs.addonindex.domain.AddOnVersion;
 import org.openmrs.addonindex.util.Version;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 /**
  * OpenMRS has historically released many of its modules in its maven repository (basically, all the modules in the
@@ -48,11 +56,20 @@ public class OpenmrsMavenRepo implements BackendHandler {
 
 	private static final Pattern RENAME_PATTERN = Pattern.compile("(.+)-omod-([0-9.]+).jar");
 
+	private static final String TREE_NODE = "indexBrowserTreeNode";
+
+	private static final Set<String> TREE_NODE_FIELDS = Set.of("type", "nodeName", "path", "version", "classifier");
+
 	private final RestTemplateBuilder restTemplateBuilder;
 
+	private final XMLInputFactory xmlInputFactory;
+
 	@Autowired
 	public OpenmrsMavenRepo(RestTemplateBuilder restTemplateBuilder) {
 		this.restTemplateBuilder = restTemplateBuilder;
+		this.xmlInputFactory = XMLInputFactory.newFactory();
+		this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
 	}
 	
 	@Override
@@ -61,39 +78,80 @@ public class OpenmrsMavenRepo implements BackendHandler {
 				+ "?groupIdHint=" + addOnToIndex.getMavenRepoDetails().getGroupId()
 				+ "&artifactIdHint=" + addOnToIndex.getMavenRepoDetails().getArtifactId();
 		log.info("Getting info from {}", url);
-		String xml = restTemplateBuilder.build().getForObject(url, String.class);
-		return handleIndexBrowserTreeViewResponse(addOnToIndex, xml);
+		return restTemplateBuilder.build().execute(url, HttpMethod.GET,
+				request -> request.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_XML)),
+				response -> {
+					try {
+						return handleIndexBrowserTreeViewResponse(addOnToIndex, response.getBody());
+					}
+					catch (XMLStreamException ex) {
+						throw new IOException("Could not parse response from " + url, ex);
+					}
+				});
 	}
 	
-	AddOnInfoAndVersions handleIndexBrowserTreeViewResponse(AddOnToIndex addOnToIndex, String xml) throws Exception {
+	AddOnInfoAndVersions handleIndexBrowserTreeViewResponse(AddOnToIndex addOnToIndex, InputStream xml)
+			throws XMLStreamException {
 		AddOnInfoAndVersions addOnInfoAndVersions = AddOnInfoAndVersions.from(addOnToIndex);
-		
-		XPath xpath = XPathFactory.newInstance().newXPath();
-		NodeList result = (NodeList) xpath.evaluate("//indexBrowserTreeNode[type='artifact' and not(classifier)]",
-				new InputSource(new StringReader(xml)),
-				XPathConstants.NODESET);
-		
-		for (int i = 0; i < result.getLength(); ++i) {
-			Element node = (Element) result.item(i);
-			String path = node.getElementsByTagName("path").item(0).getTextContent();
-			String version = node.getElementsByTagName("version").item(0).getTextContent();
-			
-			String nodeName = node.getElementsByTagName("nodeName").item(0).getTextContent();
-			// typically this will be like "appui-omod-1.6.jar"
-			String renameTo = null;
-			Matcher matcher = RENAME_PATTERN.matcher(nodeName);
-			if (matcher.matches()) {
-				renameTo = matcher.group(1) + "-" + matcher.group(2) + ".omod";
+		readArtifacts(xml, addOnInfoAndVersions::addVersion);
+		return addOnInfoAndVersions;
+	}
+
+	/**
+	 * Streams through the (sometimes very large) tree of groups, artifacts and versions, handing each node of type
+	 * "artifact" without a classifier to the consumer as soon as its closing tag is read.
+	 */
+	void readArtifacts(InputStream xml, Consumer<AddOnVersion> consumer) throws XMLStreamException {
+		XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(xml);
+		try {
+			// tree nodes that are open, innermost first, with the depth they are at and the fields read so far
+			Deque<Map<String, String>> nodes = new ArrayDeque<>();
+			Deque<Integer> nodeDepths = new ArrayDeque<>();
+			int depth = 0;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					++depth;
+					String name = reader.getLocalName();
+					if (TREE_NODE.equals(name)) {
+						nodes.push(new HashMap<>());
+						nodeDepths.push(depth);
+					}
+					else if (!nodes.isEmpty() && depth == nodeDepths.peek() + 1 && TREE_NODE_FIELDS.contains(name)) {
+						// getElementText moves on to the matching end element
+						nodes.peek().put(name, reader.getElementText().trim());
+						--depth;
+					}
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (!nodes.isEmpty() && depth == nodeDepths.peek()) {
+						nodeDepths.pop();
+						Map<String, String> node = nodes.pop();
+						if ("artifact".equals(node.get("type")) && !node.containsKey("classifier")) {
+							consumer.accept(toAddOnVersion(node));
+						}
+					}
+					--depth;
+				}
 			}
-			
-			AddOnVersion addOnVersion = new AddOnVersion();
-			addOnVersion.setVersion(new Version(version));
-			addOnVersion.setDownloadUri(NEXUS_URL + "service/local/repositories/modules/content" + path);
-			addOnVersion.setRenameTo(renameTo);
-			
-			addOnInfoAndVersions.addVersion(addOnVersion);
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	private AddOnVersion toAddOnVersion(Map<String, String> node) {
+		// typically this will be like "appui-omod-1.6.jar"
+		String renameTo = null;
+		Matcher matcher = RENAME_PATTERN.matcher(node.get("nodeName"));
+		if (matcher.matches()) {
+			renameTo = matcher.group(1) + "-" + matcher.group(2) + ".omod";
 		}
 		
-		return addOnInfoAndVersions;
+		AddOnVersion addOnVersion = new AddOnVersion();
+		addOnVersion.setVersion(new Version(node.get("version")));
+		addOnVersion.setDownloadUri(NEXUS_URL + "service/local/repositories/modules/content" + node.get("path"));
+		addOnVersion.setRenameTo(renameTo);
+		return addOnVersion;
 	}
 }
@@ -0,0 +1,36 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.backend;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Set;
+
+import org.openmrs.addonindex.domain.AddOnToIndex;
+
+/**
+ * This interface indicates that a BackendHandler implementation can cheaply tell us which of its add-ons have had
+ * something published recently, so that we can re-index just those instead of waiting for the next full pass.
+ */
+public interface SupportsChangeDetection extends BackendHandler {
+
+	/**
+	 * Implementations should answer this with as few requests as possible (ideally one for all the add-ons), since it
+	 * is called every few minutes.
+	 *
+	 * @param addOns the add-ons hosted on this backend
+	 * @param since  only report artifacts created or modified after this time
+	 * @return uids of those add-ons that have new or modified artifacts, or null if the backend can't tell us right now
+	 * @throws Exception
+	 */
+	Set<String> findChangedSince(Collection<AddOnToIndex> addOns, OffsetDateTime since) throws Exception;
+
+}
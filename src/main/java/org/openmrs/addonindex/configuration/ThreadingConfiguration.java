@@ -0,0 +1,37 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.openmrs.addonindex.util.VirtualThreads;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Request handling is almost entirely blocking I/O (Elasticsearch, proxying artifacts), so when threads.virtual is set
+ * we let Tomcat run each request on its own virtual thread instead of its platform thread pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "threads.virtual", havingValue = "true")
+@Slf4j
+public class ThreadingConfiguration {
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadRequestExecutor() {
+		return protocolHandler -> VirtualThreads.newVirtualThreadPerTaskExecutor().ifPresentOrElse(
+				protocolHandler::setExecutor,
+				() -> log.warn("Virtual threads require Java 21 or later, handling requests on platform threads instead"));
+	}
+
+}
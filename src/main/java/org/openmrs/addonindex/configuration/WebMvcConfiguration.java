@@ -12,6 +12,7 @@ package org.openmrs.addonindex.configuration;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
@@ -29,7 +30,9 @@ public class WebMvcConfiguration implements WebMvcConfigurer {
 
 		registry
 				.addMapping("/api/**")
-				.allowedMethods(RequestMethod.GET.name())
+				// POST is only for lookups with too many parameters for a URL, e.g. /api/v1/addons
+				.allowedMethods(RequestMethod.GET.name(), RequestMethod.POST.name())
+				.exposedHeaders(HttpHeaders.LINK)
 				.maxAge(1800L);
 
 		registry
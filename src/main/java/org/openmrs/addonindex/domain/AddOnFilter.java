@@ -0,0 +1,48 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What add-ons must have to be listed. Anything left null doesn't filter.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddOnFilter {
+
+	private AddOnType type;
+
+	private String tag;
+
+	private AddOnStatus status;
+
+	/**
+	 * Some version supports this language
+	 */
+	private String language;
+
+	/**
+	 * Some version runs on this version of OpenMRS core
+	 */
+	private String coreVersion;
+
+	/**
+	 * @return true if this filters on anything that the index itself can't filter searches on
+	 */
+	public boolean hasFacetsOnlyInMemory() {
+		return status != null || language != null || coreVersion != null;
+	}
+
+}
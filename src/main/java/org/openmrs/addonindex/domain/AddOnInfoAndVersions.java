@@ -32,6 +32,12 @@ public class AddOnInfoAndVersions {
 	
 	public final static String ES_INDEX = "add_on_info_and_versions";
 
+	/**
+	 * Fields that change from one indexing pass to the next without anything else about the add-on changing, so that
+	 * they can be updated in the index without re-indexing every version
+	 */
+	public final static String[] VOLATILE_FIELDS = { "downloadCountInLast30Days" };
+
 	@EqualsAndHashCode.Include
 	private String uid;
 
@@ -122,6 +128,23 @@ public class AddOnInfoAndVersions {
         return getVersion(getLatestVersion()).isPresent() ? getVersion(getLatestVersion()).get() : null;
     }
 	
+	/**
+	 * @param installed       null to consider every version
+	 * @param userCoreVersion null to consider versions whatever they require
+	 * @return the newest version that is newer than installed and runs on userCoreVersion, or null if there isn't one
+	 */
+	public AddOnVersion findUpdate(Version installed, String userCoreVersion) {
+		if (versions == null) {
+			return null;
+		}
+		return versions.stream()
+				.filter(version -> installed == null || version.getVersion().compareTo(installed) > 0)
+				.filter(version -> userCoreVersion == null || OpenmrsVersionCompareUtil.matchRequiredVersions(
+						userCoreVersion, version.getRequireOpenmrsVersion()))
+				.max(Comparator.naturalOrder())
+				.orElse(null);
+	}
+	
 	public void setDetailsBasedOnLatestVersion() {
 		Optional<AddOnVersion> version = getVersion(getLatestVersion());
 		if (version.isPresent()) {
@@ -23,6 +23,13 @@ import org.springframework.beans.BeanUtils;
 @Data
 @NoArgsConstructor
 public class AddOnInfoSummary {
+
+	/**
+	 * The fields of an indexed {@link AddOnInfoAndVersions} that a summary is built from, so that searches only need to
+	 * fetch these. versionCount and latestVersion are stored as top-level fields when an add-on is indexed.
+	 */
+	public static final String[] SOURCE_FIELDS = { "uid", "status", "type", "name", "description", "icon", "tags",
+			"versionCount", "latestVersion", "downloadCountInLast30Days" };
 	
 	private String uid;
 	
@@ -42,6 +49,8 @@ public class AddOnInfoSummary {
 	
 	private Version latestVersion;
 	
+	private Integer downloadCountInLast30Days;
+	
 	public AddOnInfoSummary(AddOnInfoAndVersions full) {
 		BeanUtils.copyProperties(full, this);
 	}
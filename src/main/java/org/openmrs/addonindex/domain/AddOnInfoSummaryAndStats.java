@@ -16,4 +16,9 @@ public class AddOnInfoSummaryAndStats {
 		downloadCount = addOn.getDownloadCountInLast30Days();
 	}
 
+	public AddOnInfoSummaryAndStats(AddOnInfoSummary summary) {
+		this.summary = summary;
+		downloadCount = summary.getDownloadCountInLast30Days();
+	}
+
 }
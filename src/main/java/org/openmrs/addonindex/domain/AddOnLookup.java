@@ -0,0 +1,37 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a batch lookup found for one of the uids it was asked for
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddOnLookup {
+
+	private String uid;
+
+	private boolean found;
+
+	/**
+	 * The {@link AddOnInfoAndVersions}, with only the fields that were asked for, or null if it wasn't found
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private JsonNode addOn;
+
+}
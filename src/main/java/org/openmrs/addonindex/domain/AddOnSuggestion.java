@@ -0,0 +1,38 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A completion for what someone has started typing in the search box
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddOnSuggestion {
+
+	/**
+	 * What matched: the add-on's name, uid, module id or one of its tags
+	 */
+	private String text;
+
+	private String uid;
+
+	private String name;
+
+	private AddOnType type;
+
+	private Integer downloadCountInLast30Days;
+
+}
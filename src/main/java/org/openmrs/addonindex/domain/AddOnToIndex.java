@@ -10,7 +10,9 @@
 
 package org.openmrs.addonindex.domain;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Objects;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -19,6 +21,7 @@ import org.openmrs.addonindex.backend.BackendHandler;
 import org.openmrs.addonindex.domain.backend.BintrayPackageDetails;
 import org.openmrs.addonindex.domain.backend.MavenRepoDetails;
 import org.openmrs.addonindex.domain.backend.ModulusModuleDetails;
+import org.springframework.util.DigestUtils;
 
 /**
  * An OpenMRS add-on that should be indexed.
@@ -57,4 +60,36 @@ public class AddOnToIndex {
 	
 	private ModulusModuleDetails modulusDetails;
 
+	/**
+	 * equals() only looks at the uid, this compares everything that an author can change in add-ons-to-index.json
+	 *
+	 * @param other
+	 * @return true if other describes this add-on in exactly the same way
+	 */
+	public boolean hasSameDefinitionAs(AddOnToIndex other) {
+		return other != null
+				&& Objects.equals(uid, other.uid)
+				&& status == other.status
+				&& type == other.type
+				&& Objects.equals(name, other.name)
+				&& Objects.equals(description, other.description)
+				&& Objects.equals(icon, other.icon)
+				&& Objects.equals(tags, other.tags)
+				&& Objects.equals(maintainers, other.maintainers)
+				&& Objects.equals(links, other.links)
+				&& Objects.equals(backend, other.backend)
+				&& Objects.equals(mavenRepoDetails, other.mavenRepoDetails)
+				&& Objects.equals(bintrayPackageDetails, other.bintrayPackageDetails)
+				&& Objects.equals(modulusDetails, other.modulusDetails);
+	}
+
+	/**
+	 * Unlike hashCode() this covers the whole definition, and is stable across restarts
+	 *
+	 * @return a digest of everything that an author can change in add-ons-to-index.json
+	 */
+	public String definitionFingerprint() {
+		return DigestUtils.md5DigestAsHex(toString().getBytes(StandardCharsets.UTF_8));
+	}
+
 }
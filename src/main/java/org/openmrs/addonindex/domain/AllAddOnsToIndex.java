@@ -11,8 +11,13 @@
 package org.openmrs.addonindex.domain;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -40,5 +45,18 @@ public class AllAddOnsToIndex {
 	public Optional<AddOnList> getListByUid(String uid) {
 		return lists.stream().filter(addOn -> addOn.getUid().equals(uid)).findFirst();
 	}
+
+	/**
+	 * @param previous an earlier version of this list
+	 * @return uids of add-ons that are new in this list, or whose definition has changed since previous
+	 */
+	public Set<String> getUidsChangedFrom(AllAddOnsToIndex previous) {
+		Map<String, AddOnToIndex> before = previous.getToIndex().stream()
+				.collect(Collectors.toMap(AddOnToIndex::getUid, Function.identity(), (a, b) -> a));
+		return toIndex.stream()
+				.filter(addOn -> !addOn.hasSameDefinitionAs(before.get(addOn.getUid())))
+				.map(AddOnToIndex::getUid)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+	}
 	
 }
@@ -0,0 +1,40 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import java.time.OffsetDateTime;
+
+import lombok.Value;
+
+/**
+ * One attempt at fetching details for an add-on and indexing it
+ */
+@Value
+public class IndexingAttempt {
+
+	public enum Outcome {
+		SUCCESS, ERROR
+	}
+
+	OffsetDateTime started;
+
+	long durationMillis;
+
+	Outcome outcome;
+
+	/**
+	 * Size of the add-on files we downloaded to inspect (not counting backend API calls)
+	 */
+	long bytesFetched;
+
+	String error;
+
+}
@@ -0,0 +1,52 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The most recent attempts to index one add-on, in a fixed-size ring buffer. Writers never block, and neither do
+ * readers, who get a copy.
+ */
+public class IndexingAttemptHistory {
+
+	private final AtomicReferenceArray<IndexingAttempt> slots;
+
+	private final AtomicLong next = new AtomicLong();
+
+	public IndexingAttemptHistory(int capacity) {
+		slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	public void add(IndexingAttempt attempt) {
+		slots.set((int) (next.getAndIncrement() % slots.length()), attempt);
+	}
+
+	/**
+	 * @return the most recent attempts, newest first
+	 */
+	public List<IndexingAttempt> getAttempts() {
+		long end = next.get();
+		List<IndexingAttempt> ret = new ArrayList<>(slots.length());
+		for (long i = end - 1; i >= 0 && i >= end - slots.length(); i--) {
+			IndexingAttempt attempt = slots.get((int) (i % slots.length()));
+			// a concurrent writer may have claimed this slot but not filled it yet
+			if (attempt != null) {
+				ret.add(attempt);
+			}
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import lombok.Value;
+
+/**
+ * Add-ons that should be re-indexed before the next full pass, e.g. because they were just added to our list, or their
+ * backend reports a new release. Each add-on is queued at most once, and higher priority reasons are handled first.
+ */
+public class IndexingQueue {
+
+	/**
+	 * In priority order
+	 */
+	public enum Reason {
+		NEW_RELEASE, DEFINITION_CHANGED
+	}
+
+	private final PriorityBlockingQueue<Entry> queue = new PriorityBlockingQueue<>(11,
+			Comparator.comparing(Entry::getReason).thenComparingLong(Entry::getSequence));
+
+	private final Map<String, Entry> queued = new ConcurrentHashMap<>();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * @param uid
+	 * @param reason
+	 * @return false if this add-on was already queued
+	 */
+	public boolean add(String uid, Reason reason) {
+		Entry entry = new Entry(uid, reason, sequence.incrementAndGet());
+		if (queued.putIfAbsent(uid, entry) != null) {
+			return false;
+		}
+		queue.add(entry);
+		return true;
+	}
+
+	/**
+	 * @return the uid of the next add-on to index, or null if the queue is empty
+	 */
+	public String poll() {
+		Entry entry = queue.poll();
+		if (entry == null) {
+			return null;
+		}
+		queued.remove(entry.getUid(), entry);
+		return entry.getUid();
+	}
+
+	/**
+	 * Call this when an add-on is being indexed anyway
+	 *
+	 * @param uid
+	 */
+	public void remove(String uid) {
+		Entry entry = queued.remove(uid);
+		if (entry != null) {
+			queue.remove(entry);
+		}
+	}
+
+	public List<String> getUids() {
+		return queue.stream()
+				.sorted(queue.comparator())
+				.map(Entry::getUid)
+				.collect(Collectors.toList());
+	}
+
+	public int size() {
+		return queue.size();
+	}
+
+	@Value
+	private static class Entry {
+
+		String uid;
+
+		Reason reason;
+
+		long sequence;
+	}
+
+}
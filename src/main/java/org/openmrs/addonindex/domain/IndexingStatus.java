@@ -13,28 +13,97 @@ package org.openmrs.addonindex.domain;
 import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
+/**
+ * Where we are with indexing each add-on. Safe to update from several indexing threads while requests read it: each
+ * update replaces one add-on's status atomically, and readers get copies of the maps.
+ */
 public class IndexingStatus {
 
-	private final Map<String, Status> statuses = new LinkedHashMap<>();
+	static final int HISTORY_SIZE = 10;
+
+	private final ConcurrentMap<String, Status> statuses = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, IndexingAttemptHistory> histories = new ConcurrentHashMap<>();
 
+	private final AtomicLong modifications = new AtomicLong();
+
+	private final List<Consumer<IndexingStatusEvent>> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * {@link Status} is mutable, but {@link #setStatus} swaps in the new status (carrying values over into it from the
+	 * previous one) instead of changing the stored one, so each of these is a consistent view of its add-on. Callers
+	 * must not modify them.
+	 *
+	 * @return a copy of the map of current statuses, by uid
+	 */
 	public Map<String, Status> getStatuses() {
-		return statuses;
+		return new TreeMap<>(statuses);
 	}
 
 	public void setStatus(AddOnToIndex toIndex, Status status) {
-		statuses.put(toIndex.getUid(), status);
+		Status current = statuses.merge(toIndex.getUid(), status, (previous, next) -> next.carryOverFrom(previous));
+		modifications.incrementAndGet();
+		if (!listeners.isEmpty()) {
+			IndexingStatusEvent event = IndexingStatusEvent.of(toIndex.getUid(), current);
+			for (Consumer<IndexingStatusEvent> listener : listeners) {
+				listener.accept(event);
+			}
+		}
+	}
+
+	/**
+	 * Listeners are called on the indexing thread, so they should return quickly and must not throw
+	 *
+	 * @param listener will be told about every status change from now on
+	 */
+	public void addListener(Consumer<IndexingStatusEvent> listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Consumer<IndexingStatusEvent> listener) {
+		listeners.remove(listener);
+	}
+
+	public void recordAttempt(AddOnToIndex toIndex, IndexingAttempt attempt) {
+		histories.computeIfAbsent(toIndex.getUid(), uid -> new IndexingAttemptHistory(HISTORY_SIZE)).add(attempt);
+	}
+
+	/**
+	 * @return the most recent attempts to index each add-on, newest first
+	 */
+	public Map<String, List<IndexingAttempt>> getHistories() {
+		Map<String, List<IndexingAttempt>> ret = new TreeMap<>();
+		histories.forEach((uid, history) -> ret.put(uid, history.getAttempts()));
+		return ret;
+	}
+
+	/**
+	 * @return a number that changes whenever any status is set, so callers can tell whether anything has happened
+	 */
+	public long getModifications() {
+		return modifications.get();
 	}
 
 	public Map<AddOnToIndex, Status> getStatusesFor(Collection<AddOnToIndex> toIndex) {
-		return toIndex.stream()
-				.collect(Collectors.toMap(a -> a, a -> statuses.get(a.getUid()), (a, b) -> a, LinkedHashMap::new));
+		// not Collectors.toMap, since add-ons we haven't tried to index yet have no status
+		Map<AddOnToIndex, Status> ret = new LinkedHashMap<>();
+		for (AddOnToIndex addOn : toIndex) {
+			ret.putIfAbsent(addOn, statuses.get(addOn.getUid()));
+		}
+		return ret;
 	}
 
 	@Data
@@ -53,10 +122,33 @@ public class IndexingStatus {
 
 		private Exception error;
 
+		/**
+		 * How many attempts in a row have failed (carried over from previous statuses)
+		 */
+		private int consecutiveErrors;
+
+		/**
+		 * When we last indexed this successfully (carried over from previous statuses)
+		 */
+		private OffsetDateTime lastSuccess;
+
+		/**
+		 * As of the last successful indexing (carried over from previous statuses)
+		 */
+		private Integer downloadCountInLast30Days;
+
+		/**
+		 * {@link AddOnToIndex#definitionFingerprint()} as of the last successful indexing (carried over from previous
+		 * statuses)
+		 */
+		private String fingerprint;
+
 		public static Status success(AddOnInfoSummary summary) {
 			Status status = new Status();
 			status.lastIndexed = OffsetDateTime.now();
+			status.lastSuccess = status.lastIndexed;
 			status.summary = summary;
+			status.downloadCountInLast30Days = summary.getDownloadCountInLast30Days();
 			return status;
 		}
 
@@ -64,6 +156,7 @@ public class IndexingStatus {
 			Status status = new Status();
 			status.lastIndexed = OffsetDateTime.now();
 			status.error = error;
+			status.consecutiveErrors = 1;
 			return status;
 		}
 
@@ -73,6 +166,27 @@ public class IndexingStatus {
 			status.indexingNow = true;
 			return status;
 		}
+
+		Status carryOverFrom(Status previous) {
+			if (lastSuccess == null) {
+				lastSuccess = previous.lastSuccess;
+				downloadCountInLast30Days = previous.downloadCountInLast30Days;
+				fingerprint = previous.fingerprint;
+			}
+			if (indexingNow) {
+				lastIndexed = previous.lastIndexed;
+				consecutiveErrors = previous.consecutiveErrors;
+				return this;
+			}
+			if (previous.indexingNow && startedIndexing == null) {
+				// so we can tell how long this attempt took
+				startedIndexing = previous.startedIndexing;
+			}
+			if (error != null) {
+				consecutiveErrors = previous.consecutiveErrors + 1;
+			}
+			return this;
+		}
 	}
 
 }
@@ -0,0 +1,53 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import java.time.Duration;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+/**
+ * A compact notification that one add-on's {@link IndexingStatus.Status} changed
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IndexingStatusEvent {
+
+	public enum State {
+		INDEXING, INDEXED, ERROR
+	}
+
+	String uid;
+
+	State state;
+
+	/**
+	 * How long indexing took, if it just finished
+	 */
+	Long durationMillis;
+
+	/**
+	 * Class name of the exception, if it failed
+	 */
+	String error;
+
+	public static IndexingStatusEvent of(String uid, IndexingStatus.Status status) {
+		State state = status.getIndexingNow() ? State.INDEXING : status.getError() != null ? State.ERROR : State.INDEXED;
+		Long duration = null;
+		if (state != State.INDEXING && status.getStartedIndexing() != null && status.getLastIndexed() != null) {
+			duration = Duration.between(status.getStartedIndexing(), status.getLastIndexed()).toMillis();
+		}
+		String error = status.getError() == null ? null : status.getError().getClass().getName();
+		return new IndexingStatusEvent(uid, state, duration, error);
+	}
+
+}
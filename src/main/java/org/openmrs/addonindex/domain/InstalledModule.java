@@ -0,0 +1,33 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.openmrs.addonindex.util.Version;
+
+/**
+ * A module that an OpenMRS server has installed, as it reports it when checking for updates
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstalledModule {
+
+	private String moduleId;
+
+	/**
+	 * null if the server doesn't know, in which case any version is an update
+	 */
+	private Version installedVersion;
+
+}
@@ -0,0 +1,41 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.openmrs.addonindex.util.Version;
+
+/**
+ * The answer to an {@link UpdateCheck} for one of the modules in it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModuleUpdate {
+
+	private String moduleId;
+
+	private Version installedVersion;
+
+	/**
+	 * Whether we have indexed this module at all
+	 */
+	private boolean found;
+
+	/**
+	 * The newest version that is newer than the installed one and runs on the server's core version, or null if there
+	 * isn't one
+	 */
+	private AddOnVersion update;
+
+}
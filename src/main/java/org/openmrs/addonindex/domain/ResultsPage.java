@@ -0,0 +1,48 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of results, and an opaque cursor to pass back to get the page after it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultsPage<T> {
+
+	private List<T> results;
+
+	/**
+	 * null if this is the last page
+	 */
+	private String next;
+
+	/**
+	 * Only if asked for: for each facet (e.g. "tag"), how many of all the results, not just the ones on this page, have
+	 * each of its values
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private Map<String, Map<String, Long>> facets;
+
+	public ResultsPage(List<T> results, String next) {
+		this.results = results;
+		this.next = next;
+	}
+
+}
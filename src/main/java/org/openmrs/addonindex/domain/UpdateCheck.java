@@ -0,0 +1,34 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.domain;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Everything an OpenMRS server needs to ask to find out which of its modules have updates
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpdateCheck {
+
+	/**
+	 * The version of OpenMRS core that the server runs, or null to consider versions of modules whatever they require
+	 */
+	private String coreVersion;
+
+	private List<InstalledModule> modules;
+
+}
@@ -0,0 +1,18 @@
+package org.openmrs.addonindex.domain.bintray;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BintrayFile {
+
+	private String name;
+
+	private String path;
+
+	private String created;
+
+}
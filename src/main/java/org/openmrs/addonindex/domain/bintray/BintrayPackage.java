@@ -0,0 +1,20 @@
+package org.openmrs.addonindex.domain.bintray;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BintrayPackage {
+
+	private String name;
+
+	private String desc;
+
+	private List<String> versions;
+
+}
@@ -0,0 +1,16 @@
+package org.openmrs.addonindex.domain.modulus;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ModulusModule {
+
+	private String name;
+
+	private String description;
+
+}
@@ -0,0 +1,20 @@
+package org.openmrs.addonindex.domain.modulus;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ModulusRelease {
+
+	private String moduleVersion;
+
+	private String dateCreated;
+
+	@JsonProperty("downloadURL")
+	private String downloadUrl;
+
+}
@@ -10,38 +10,94 @@
 
 package org.openmrs.addonindex.rest;
 
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openmrs.addonindex.domain.AddOnFilter;
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnInfoSummary;
+import org.openmrs.addonindex.domain.AddOnLookup;
+import org.openmrs.addonindex.domain.AddOnStatus;
 import org.openmrs.addonindex.domain.AddOnType;
 import org.openmrs.addonindex.domain.AddOnVersion;
+import org.openmrs.addonindex.domain.ResultsPage;
+import org.openmrs.addonindex.service.FacetIndex;
 import org.openmrs.addonindex.service.Index;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 public class AddOnController {
 	
 	private final Index index;
+
+	private final FacetIndex facetIndex;
+
+	private final ObjectMapper objectMapper;
 	
 	@Autowired
-	public AddOnController(Index index) {
+	public AddOnController(Index index, FacetIndex facetIndex, ObjectMapper objectMapper) {
 		this.index = index;
+		this.facetIndex = facetIndex;
+		this.objectMapper = objectMapper;
 	}
 	
+	/**
+	 * Returns a page of results. If there are more, the response has a Link header with rel="next" for the next page.
+	 * Listings without a query are served from the {@link FacetIndex}, as is the filtering of searches on status,
+	 * language and coreversion. With facets=true, the page comes back as a {@link ResultsPage}, with counts for each
+	 * facet over all the results, so that a UI can show its filters without asking for each count.
+	 */
 	@RequestMapping(method = RequestMethod.GET, value = "/api/v1/addon")
-	public Collection<AddOnInfoSummary> search(@RequestParam(value = "type", required = false) AddOnType type,
-	                                           @RequestParam(value = "q", required = false) String query, 
-						   @RequestParam(value = "tag", required = false) String tag) throws Exception {
-		return index.search(type, query, tag);
+	public ResponseEntity<?> search(
+			@RequestParam(value = "type", required = false) AddOnType type,
+			@RequestParam(value = "q", required = false) String query,
+			@RequestParam(value = "tag", required = false) String tag,
+			@RequestParam(value = "status", required = false) AddOnStatus status,
+			@RequestParam(value = "language", required = false) String language,
+			@RequestParam(value = "coreversion", required = false) String coreVersion,
+			@RequestParam(value = "facets", defaultValue = "false") boolean facets,
+			@RequestParam(value = "size", defaultValue = "" + Index.MAX_PAGE_SIZE) int size,
+			@RequestParam(value = "after", required = false) String after) throws Exception {
+		AddOnFilter filter = new AddOnFilter(type, tag, status, language, coreVersion);
+		ResultsPage<AddOnInfoSummary> page;
+		if (query == null) {
+			page = facetIndex.list(filter, size, after);
+			if (facets) {
+				page.setFacets(facetIndex.count(filter));
+			}
+		} else if (filter.hasFacetsOnlyInMemory()) {
+			page = index.search(type, query, tag, facetIndex.uids(filter), facets, size, after);
+		} else {
+			page = index.search(type, query, tag, null, facets, size, after);
+		}
+		HttpHeaders headers = new HttpHeaders();
+		if (page.getNext() != null) {
+			String next = ServletUriComponentsBuilder.fromCurrentRequest()
+					.replaceQueryParam("after", page.getNext())
+					.toUriString();
+			headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+		}
+		if (facets) {
+			return new ResponseEntity<>(page, headers, HttpStatus.OK);
+		}
+		return new ResponseEntity<>(page.getResults(), headers, HttpStatus.OK);
 	}
 
 	@RequestMapping(method = RequestMethod.GET, value = "/api/v1/addon", params = "modulePackage")
@@ -59,6 +115,56 @@ public class AddOnController {
 		return new ResponseEntity<>(addOn, addOn == null ? HttpStatus.NOT_FOUND : HttpStatus.OK);
 	}
 
+	/**
+	 * Looks up many add-ons at once, e.g. all of the modules that a server has installed, with one request to the index.
+	 * There is an entry for each distinct uid, in the order given, saying whether it was found.
+	 *
+	 * @param fields if given, only these fields of each add-on (e.g. name,latestVersion) are returned
+	 */
+	@RequestMapping(method = RequestMethod.GET, value = "/api/v1/addons")
+	public ResponseEntity<List<AddOnLookup>> getMany(
+			@RequestParam(value = "uid") List<String> uids,
+			@RequestParam(value = "fields", required = false) List<String> fields) throws Exception {
+		Set<String> distinct = new LinkedHashSet<>(uids);
+		if (distinct.size() > Index.MAX_PAGE_SIZE) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+		Map<String, AddOnInfoAndVersions> found = index.getByUids(distinct);
+		List<AddOnLookup> lookups = new ArrayList<>(distinct.size());
+		for (String uid : distinct) {
+			AddOnInfoAndVersions addOn = found.get(uid);
+			lookups.add(new AddOnLookup(uid, addOn != null, addOn == null ? null : project(addOn, fields)));
+		}
+		return new ResponseEntity<>(lookups, HttpStatus.OK);
+	}
+
+	/**
+	 * Like {@link #getMany(List, List)}, for when there are too many uids for a URL
+	 */
+	@RequestMapping(method = RequestMethod.POST, value = "/api/v1/addons")
+	public ResponseEntity<List<AddOnLookup>> postMany(
+			@RequestBody List<String> uids,
+			@RequestParam(value = "fields", required = false) List<String> fields) throws Exception {
+		return getMany(uids, fields);
+	}
+
+	/**
+	 * Versions are indexed newest first, but come out oldest first, like {@link #getOne(String)} returns them
+	 */
+	private ObjectNode project(AddOnInfoAndVersions addOn, List<String> fields) {
+		ObjectNode node = objectMapper.valueToTree(addOn);
+		if (fields != null) {
+			node.retain(fields);
+		}
+		JsonNode versions = node.get("versions");
+		if (versions != null && versions.isArray()) {
+			List<JsonNode> oldestFirst = new ArrayList<>();
+			versions.forEach(version -> oldestFirst.add(0, version));
+			node.putArray("versions").addAll(oldestFirst);
+		}
+		return node;
+	}
+
     @RequestMapping(method = RequestMethod.GET, value = "/api/v1/addon/{uid}/latestVersion")
     public ResponseEntity<AddOnVersion> getLatestVersion(
             @RequestParam(value = "coreversion", required = false) String userCoreVersion,
@@ -0,0 +1,92 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.rest;
+
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openmrs.addonindex.service.Index;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * The whole catalog in one request, for tools that keep their own copy of it, rather than one request per add-on
+ */
+@RestController
+public class ExportController {
+
+	public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	private final Index index;
+
+	private final ObjectMapper objectMapper;
+
+	@Autowired
+	public ExportController(Index index, ObjectMapper objectMapper) {
+		this.index = index;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Streams every add-on, with all its versions, as one JSON object per line. The ETag is the index's generation, so
+	 * a client that sends it back in If-None-Match gets a 304 until something has been re-indexed.
+	 */
+	@RequestMapping(method = RequestMethod.GET, value = "/api/v1/export")
+	public ResponseEntity<StreamingResponseBody> export(
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding)
+			throws Exception {
+		String eTag = "\"" + index.getGeneration() + "\"";
+		if (eTag.equals(ifNoneMatch)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+		}
+
+		boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+				.eTag(eTag)
+				.contentType(NDJSON)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (gzip) {
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return response.body(out -> write(gzip ? new GZIPOutputStream(out, 8192) : out));
+	}
+
+	private void write(OutputStream out) {
+		try {
+			JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+			generator.setRootValueSeparator(null);
+			index.forEach(addOn -> {
+				generator.writeObject(addOn);
+				generator.writeRaw('\n');
+			});
+			generator.flush();
+			if (out instanceof GZIPOutputStream) {
+				((GZIPOutputStream) out).finish();
+			}
+		}
+		catch (Exception ex) {
+			// the status has already been sent, so all we can do is cut the response short
+			throw new IllegalStateException("Export failed", ex);
+		}
+	}
+
+}
@@ -37,5 +37,14 @@ public class GlobalExceptionHandler {
 	public String handleNoSuchElement(Exception ex) {
 		return ex.getMessage();
 	}
+
+	/**
+	 * For example a paging cursor that we didn't make
+	 */
+	@ExceptionHandler(IllegalArgumentException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public String handleIllegalArgument(Exception ex) {
+		return ex.getMessage();
+	}
 	
 }
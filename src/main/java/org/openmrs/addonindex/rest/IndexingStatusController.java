@@ -10,23 +10,50 @@
 
 package org.openmrs.addonindex.rest;
 
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
+import lombok.extern.slf4j.Slf4j;
+import org.openmrs.addonindex.domain.IndexingStatusEvent;
 import org.openmrs.addonindex.service.IndexingService;
+import org.openmrs.addonindex.util.VirtualThreads;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
+@Slf4j
 public class IndexingStatusController {
 	
+	// clients (e.g. EventSource) reconnect by themselves when this runs out
+	private static final long STREAM_TIMEOUT = 60 * 60 * 1000L;
+
+	// a full pass sends two events per add-on, so this is a client that has stopped reading rather than a slow one
+	private static final int STREAM_QUEUE_SIZE = 1000;
+	
 	private final IndexingService service;
 	
+	// we send events on this rather than the indexing threads, so a slow client can't hold up indexing, and each
+	// client's events are sent by their own task, so a slow client can't hold up the others either
+	private final ExecutorService sender;
+	
 	@Autowired
-	public IndexingStatusController(IndexingService service) {
+	public IndexingStatusController(IndexingService service, @Value("${threads.virtual}") boolean virtualThreads) {
 		this.service = service;
+		this.sender = VirtualThreads.newUnboundedExecutor(virtualThreads, "indexing-status-stream-");
+	}
+	
+	@PreDestroy
+	public void stopSender() {
+		sender.shutdownNow();
 	}
 	
 	@RequestMapping(method = RequestMethod.GET, value = "/api/v1/indexingstatus")
@@ -34,7 +61,32 @@ public class IndexingStatusController {
 		Map<String, Object> ret = new LinkedHashMap<>();
 		ret.put("toIndex", service.getAllToIndex());
 		ret.put("statuses", service.getIndexingStatus().getStatuses());
+		ret.put("history", service.getIndexingStatus().getHistories());
+		ret.put("queued", service.getIndexingQueue().getUids());
 		return ret;
 	}
 	
+	/**
+	 * Pushes a small event whenever an add-on starts or finishes indexing, so you can watch a pass without polling
+	 * {@link #checkStatus()}
+	 */
+	@RequestMapping(method = RequestMethod.GET, value = "/api/v1/indexingstatus/stream",
+			produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamStatus() throws IOException {
+		SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT);
+		// so that the response starts right away, rather than at the first status change
+		emitter.send(SseEmitter.event().comment("indexing status"));
+		StatusStream<IndexingStatusEvent> stream = new StatusStream<>(STREAM_QUEUE_SIZE, sender,
+				event -> emitter.send(SseEmitter.event().name("status").data(event, MediaType.APPLICATION_JSON)),
+				closed -> {
+					service.getIndexingStatus().removeListener(closed);
+					emitter.complete();
+				});
+		service.getIndexingStatus().addListener(stream);
+		emitter.onCompletion(stream::close);
+		emitter.onTimeout(stream::close);
+		emitter.onError(ex -> stream.close());
+		return emitter;
+	}
+	
 }
@@ -14,6 +14,9 @@ import javax.servlet.http.HttpServletResponse;
 
 import java.util.Optional;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import org.openmrs.addonindex.backend.Artifactory;
 import org.openmrs.addonindex.backend.OpenmrsMavenRepo;
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
@@ -42,10 +45,17 @@ public class RenamingFileProxyController {
 	
 	private final Index index;
 	
+	private final Counter bytesProxied;
+	
 	@Autowired
-	public RenamingFileProxyController(RestTemplateBuilder restTemplateBuilder, Index index) {
+	public RenamingFileProxyController(RestTemplateBuilder restTemplateBuilder, Index index,
+	                                   MeterRegistry meterRegistry) {
 		this.restTemplateBuilder = restTemplateBuilder;
 		this.index = index;
+		this.bytesProxied = Counter.builder("addonindex.proxy.bytes")
+				.baseUnit(BaseUnits.BYTES)
+				.description("Bytes of add-on files streamed by the renaming download proxy")
+				.register(meterRegistry);
 	}
 	
 	@RequestMapping(method = RequestMethod.GET, value = "/api/v1/addon/{uid}/{version}/download")
@@ -76,7 +86,7 @@ public class RenamingFileProxyController {
 		
 		response.setHeader("Content-Disposition", "inline;filename=" + addOnVersion.get().getRenameTo());
 		if (resource != null) {
-			StreamUtils.copy(resource.getInputStream(), response.getOutputStream());
+			bytesProxied.increment(StreamUtils.copy(resource.getInputStream(), response.getOutputStream()));
 		}
 	}
 	
@@ -0,0 +1,107 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.rest;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The events waiting to be sent to one streaming client. They are sent in order, by at most one task at a time, so a
+ * client that stalls only holds up its own events. If it falls more than capacity events behind, it gets closed, and
+ * can reconnect and catch up from the full status.
+ */
+@Slf4j
+class StatusStream<T> implements Consumer<T> {
+
+	interface Sender<T> {
+
+		void send(T event) throws Exception;
+	}
+
+	private final BlockingQueue<T> queue;
+
+	private final Executor executor;
+
+	private final Sender<T> sender;
+
+	// called once, when the stream is closed, for whatever reason
+	private final Consumer<StatusStream<T>> onClose;
+
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	StatusStream(int capacity, Executor executor, Sender<T> sender, Consumer<StatusStream<T>> onClose) {
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.executor = executor;
+		this.sender = sender;
+		this.onClose = onClose;
+	}
+
+	@Override
+	public void accept(T event) {
+		if (closed.get()) {
+			return;
+		}
+		if (!queue.offer(event)) {
+			log.info("Closing an indexing status stream whose client has fallen {} events behind", queue.size());
+			close();
+			return;
+		}
+		drainIfIdle();
+	}
+
+	private void drainIfIdle() {
+		if (draining.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::drain);
+			}
+			catch (RejectedExecutionException ex) {
+				// shutting down
+				draining.set(false);
+			}
+		}
+	}
+
+	private void drain() {
+		try {
+			T event;
+			while (!closed.get() && (event = queue.poll()) != null) {
+				sender.send(event);
+			}
+		}
+		catch (Exception ex) {
+			log.debug("Indexing status stream client went away", ex);
+			close();
+		}
+		finally {
+			draining.set(false);
+		}
+		// an event may have arrived after we found the queue empty, but before we stopped draining
+		if (!closed.get() && !queue.isEmpty()) {
+			drainIfIdle();
+		}
+	}
+
+	void close() {
+		if (closed.compareAndSet(false, true)) {
+			queue.clear();
+			onClose.accept(this);
+		}
+	}
+
+}
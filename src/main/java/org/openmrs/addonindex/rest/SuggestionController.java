@@ -0,0 +1,43 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.rest;
+
+import java.util.List;
+
+import org.openmrs.addonindex.domain.AddOnSuggestion;
+import org.openmrs.addonindex.service.SuggestionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * For the search box to call on every keystroke, instead of searching
+ */
+@RestController
+public class SuggestionController {
+
+	private final SuggestionService suggestionService;
+
+	@Autowired
+	public SuggestionController(SuggestionService suggestionService) {
+		this.suggestionService = suggestionService;
+	}
+
+	@RequestMapping(method = RequestMethod.GET, value = "/api/v1/addon/suggest")
+	public List<AddOnSuggestion> suggest(
+			@RequestParam(value = "q") String prefix,
+			@RequestParam(value = "size", defaultValue = "" + SuggestionService.MAX_SUGGESTIONS) int size) {
+		return suggestionService.suggest(prefix, size);
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.rest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.InstalledModule;
+import org.openmrs.addonindex.domain.ModuleUpdate;
+import org.openmrs.addonindex.domain.UpdateCheck;
+import org.openmrs.addonindex.service.Index;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Lets an OpenMRS server check all of its modules for updates at once, instead of fetching the legacy update.rdf of
+ * each one
+ */
+@RestController
+public class UpdatesController {
+
+	// like the legacy update.rdf endpoints, we only know modules by their id
+	private static final String UID_PREFIX = "org.openmrs.module.";
+
+	private final Index index;
+
+	@Autowired
+	public UpdatesController(Index index) {
+		this.index = index;
+	}
+
+	/**
+	 * @return an answer for each module, in the order they were given, from a single lookup in the index
+	 */
+	@RequestMapping(method = RequestMethod.POST, value = "/api/v1/updates")
+	public ResponseEntity<List<ModuleUpdate>> checkForUpdates(@RequestBody UpdateCheck check) throws Exception {
+		if (check.getModules() == null) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+		Set<String> uids = new LinkedHashSet<>();
+		check.getModules().forEach(module -> uids.add(UID_PREFIX + module.getModuleId()));
+		if (uids.size() > Index.MAX_PAGE_SIZE) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		Map<String, AddOnInfoAndVersions> found = index.getByUids(uids);
+		List<ModuleUpdate> updates = new ArrayList<>(check.getModules().size());
+		for (InstalledModule module : check.getModules()) {
+			AddOnInfoAndVersions addOn = found.get(UID_PREFIX + module.getModuleId());
+			updates.add(new ModuleUpdate(module.getModuleId(), module.getInstalledVersion(), addOn != null,
+					addOn == null ? null : addOn.findUpdate(module.getInstalledVersion(), check.getCoreVersion())));
+		}
+		return new ResponseEntity<>(updates, HttpStatus.OK);
+	}
+
+}
@@ -10,12 +10,16 @@
 
 package org.openmrs.addonindex.scheduled;
 
+import javax.annotation.PostConstruct;
+
 import java.nio.charset.Charset;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.openmrs.addonindex.domain.AllAddOnsToIndex;
 import org.openmrs.addonindex.service.IndexingService;
+import org.openmrs.addonindex.service.LocalStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -30,6 +34,8 @@ import org.springframework.util.StreamUtils;
 @Slf4j
 public class FetchAddOnList {
 
+	static final String SNAPSHOT = "add-ons-to-index.json";
+
 	@Value("${add_on_list.url}")
 	private String url;
 	
@@ -42,13 +48,28 @@ public class FetchAddOnList {
 	
 	private final IndexingService indexingService;
 	
+	private final LocalStore localStore;
+	
 	@Autowired
 	public FetchAddOnList(RestTemplateBuilder restTemplateBuilder,
 	                      ObjectMapper objectMapper,
-	                      IndexingService indexingService) {
+	                      IndexingService indexingService,
+	                      LocalStore localStore) {
 		this.restTemplateBuilder = restTemplateBuilder;
 		this.objectMapper = objectMapper;
 		this.indexingService = indexingService;
+		this.localStore = localStore;
+	}
+	
+	/**
+	 * So that we can serve the lists as soon as we start up, instead of waiting for the first fetch
+	 */
+	@PostConstruct
+	public void restoreSnapshot() {
+		localStore.read(SNAPSHOT, new TypeReference<AllAddOnsToIndex>() {}).ifPresent(toIndex -> {
+			log.info("Starting with {} add-ons to index from the last list we fetched", toIndex.size());
+			indexingService.setAllToIndex(toIndex);
+		});
 	}
 	
 	@Scheduled(
@@ -80,6 +101,12 @@ public class FetchAddOnList {
 
 		if (toIndex.size() > 0) {
 			indexingService.setAllToIndex(toIndex);
+			try {
+				localStore.write(SNAPSHOT, toIndex);
+			}
+			catch (Exception ex) {
+				log.warn("Failed to save snapshot of add-ons to index", ex);
+			}
 		} else {
 			log.warn("File downloaded from {} does not list any add-ons to index. Keeping our current list", url);
 		}
@@ -1,14 +1,18 @@
 package org.openmrs.addonindex.scheduled;
 
+import javax.annotation.PostConstruct;
+
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.openmrs.addonindex.domain.artifactory.ArtifactoryFolderInfo;
 import org.openmrs.addonindex.domain.artifactory.ArtifactoryFolderInfoChild;
+import org.openmrs.addonindex.service.LocalStore;
 import org.openmrs.addonindex.service.VersionsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -21,6 +25,8 @@ import org.springframework.util.StreamUtils;
 @Slf4j
 public class FetchCoreVersionsList {
 
+    static final String SNAPSHOT = "openmrs-core-versions.json";
+
     private static final String[] STRINGS_TO_EXCLUDE = {"alpha", "beta", "RC", "SNAPSHOT"};
 
     @Value("${core_version_list.url}")
@@ -35,13 +41,28 @@ public class FetchCoreVersionsList {
 
     private final VersionsService versionsService;
 
+    private final LocalStore localStore;
+
     @Autowired
     public FetchCoreVersionsList(RestTemplateBuilder restTemplateBuilder,
                                  ObjectMapper objectMapper,
-                                 VersionsService versionsService) {
+                                 VersionsService versionsService,
+                                 LocalStore localStore) {
         this.restTemplateBuilder = restTemplateBuilder;
         this.objectMapper = objectMapper;
         this.versionsService = versionsService;
+        this.localStore = localStore;
+    }
+
+    /**
+     * So that we can serve the versions as soon as we start up, instead of waiting for the first fetch
+     */
+    @PostConstruct
+    public void restoreSnapshot() {
+        localStore.read(SNAPSHOT, new TypeReference<List<String>>() {}).ifPresent(versions -> {
+            log.info("Starting with {} openmrs-core versions from the last list we fetched", versions.size());
+            versionsService.setVersions(versions);
+        });
     }
 
     @Scheduled(
@@ -80,6 +101,11 @@ public class FetchCoreVersionsList {
                 }
             }
             versionsService.setVersions(versions);
+            try {
+                localStore.write(SNAPSHOT, versions);
+            } catch (Exception ex) {
+                log.warn("Failed to save snapshot of openmrs-core versions", ex);
+            }
         } else {
             log.warn("File downloaded from {} does not list any Core Versions to index. Keeping our current list", url);
         }
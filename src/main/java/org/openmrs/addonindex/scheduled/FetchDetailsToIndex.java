@@ -10,24 +10,42 @@
 
 package org.openmrs.addonindex.scheduled;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
-import java.nio.charset.Charset;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.openmrs.addonindex.backend.BackendHandler;
+import org.openmrs.addonindex.backend.SupportsChangeDetection;
 import org.openmrs.addonindex.backend.SupportsDownloadCounts;
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnInfoSummary;
@@ -35,20 +53,18 @@ import org.openmrs.addonindex.domain.AddOnToIndex;
 import org.openmrs.addonindex.domain.AddOnType;
 import org.openmrs.addonindex.domain.AddOnVersion;
 import org.openmrs.addonindex.domain.AllAddOnsToIndex;
+import org.openmrs.addonindex.domain.IndexingAttempt;
+import org.openmrs.addonindex.domain.IndexingQueue;
 import org.openmrs.addonindex.domain.IndexingStatus;
 import org.openmrs.addonindex.service.IndexingService;
+import org.openmrs.addonindex.util.VirtualThreads;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.io.Resource;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 /**
  * For each of the Add-Ons we're supposed to index, uses its backend handler to fetch details and available versions
@@ -61,69 +77,277 @@ public class FetchDetailsToIndex {
 	
 	private final RestTemplateBuilder restTemplateBuilder;
 
-	private final DocumentBuilderFactory documentBuilderFactory;
+	private final IndexingPriority indexingPriority;
+
+	private final MeterRegistry meterRegistry;
+
+	private final XMLInputFactory xmlInputFactory;
 
 	@Autowired
 	public FetchDetailsToIndex(IndexingService indexingService,
-	                           RestTemplateBuilder restTemplateBuilder) {
+	                           RestTemplateBuilder restTemplateBuilder,
+	                           IndexingPriority indexingPriority,
+	                           MeterRegistry meterRegistry) {
 		this.indexingService = indexingService;
 		this.restTemplateBuilder = restTemplateBuilder;
-		this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
-		this.documentBuilderFactory.setValidating(false);
+		this.indexingPriority = indexingPriority;
+		this.meterRegistry = meterRegistry;
+		this.xmlInputFactory = XMLInputFactory.newFactory();
+		this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
 	}
 	
 	@Value("${scheduler.fetch_details_to_index.fetch_extra_details}")
 	private boolean fetchExtraDetails = true;
+
+	@Value("${scheduler.fetch_details_to_index.concurrency}")
+	private int concurrency = 1;
+
+	@Value("${threads.virtual}")
+	private boolean virtualThreads = false;
+
+	// when this is null (e.g. in unit tests) we index on the calling thread
+	private ExecutorService executor;
+
+	// shared by full passes and re-indexing changed add-ons, so that together they never exceed concurrency
+	private Semaphore permits;
+
+	// held while either of those runs, so that an add-on can't be indexed by both at once
+	private final ReentrantLock indexingLock = new ReentrantLock();
+
+	private final OffsetDateTime startedAt = OffsetDateTime.now();
+
+	private final Map<Class<? extends BackendHandler>, OffsetDateTime> lastCheckedForChanges = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void startExecutor() {
+		executor = VirtualThreads.newExecutor(virtualThreads, concurrency, "fetch-details-");
+		// with virtual threads the executor is unbounded, so we limit how hard we hit the backends with these
+		permits = new Semaphore(Math.max(1, concurrency));
+	}
+
+	@PreDestroy
+	public void stopExecutor() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
 	
 	@Scheduled(
 			initialDelayString = "${scheduler.fetch_details_to_index.initial_delay}",
 			fixedDelayString = "${scheduler.fetch_details_to_index.period}")
 	public void run() {
+		indexingLock.lock();
+		try {
+			runFullPass();
+		}
+		finally {
+			indexingLock.unlock();
+		}
+	}
+
+	private void runFullPass() {
+		AllAddOnsToIndex allToIndex = indexingService.getAllToIndex();
+		List<AddOnToIndex> due = indexingPriority.dueForIndexing(allToIndex.getToIndex(),
+				indexingService.getIndexingStatus(), OffsetDateTime.now());
+		log.info("Fetching details for {} of {} add-ons that are due, {} at a time", due.size(), allToIndex.size(),
+				concurrency);
+		for (AddOnToIndex toIndex : due) {
+			// no need to do these again after this pass
+			indexingService.getIndexingQueue().remove(toIndex.getUid());
+		}
+		if (due.isEmpty()) {
+			return;
+		}
+
+		// everything this pass indexes also goes into a fresh copy of the index, which replaces the live one at the end
+		try {
+			indexingService.startRebuild();
+		}
+		catch (Exception ex) {
+			log.error("Failed to start rebuilding the index, indexing into the live one only", ex);
+		}
+		try {
+			indexAll(due);
+		}
+		finally {
+			try {
+				indexingService.finishRebuild();
+			}
+			catch (Exception ex) {
+				log.error("Failed to finish rebuilding the index, keeping the live one", ex);
+			}
+		}
+	}
+
+	/**
+	 * Between full passes, asks the backends which add-ons have new releases, and re-indexes just those (plus any add-ons
+	 * that were added or changed in our list). Skipped while a full pass is running, which leaves them queued for
+	 * next time.
+	 */
+	@Scheduled(
+			initialDelayString = "${scheduler.fetch_changed_details_to_index.initial_delay}",
+			fixedDelayString = "${scheduler.fetch_changed_details_to_index.period}")
+	public void runForChanged() {
+		if (!indexingLock.tryLock()) {
+			log.debug("A full pass is running, leaving changed add-ons for later");
+			return;
+		}
+		try {
+			indexChanged();
+		}
+		finally {
+			indexingLock.unlock();
+		}
+	}
+
+	private void indexChanged() {
+		queueAddOnsChangedInBackends();
+
 		AllAddOnsToIndex allToIndex = indexingService.getAllToIndex();
-		log.info("Fetching details for {} add-ons", allToIndex.size());
-		for (AddOnToIndex toIndex : allToIndex.getToIndex()) {
+		List<AddOnToIndex> changed = new ArrayList<>();
+		String uid;
+		while ((uid = indexingService.getIndexingQueue().poll()) != null) {
+			allToIndex.getAddOnByUid(uid).ifPresent(changed::add);
+		}
+		if (!changed.isEmpty()) {
+			log.info("Fetching details for {} changed add-ons", changed.size());
+			indexAll(changed);
+		}
+	}
+
+	void queueAddOnsChangedInBackends() {
+		Map<Class<? extends BackendHandler>, List<AddOnToIndex>> byBackend = indexingService.getAllToIndex()
+				.getToIndex().stream()
+				.filter(toIndex -> toIndex.getBackend() != null)
+				.collect(Collectors.groupingBy(AddOnToIndex::getBackend));
+
+		for (List<AddOnToIndex> addOns : byBackend.values()) {
+			BackendHandler handler = indexingService.getHandlerFor(addOns.get(0));
+			if (!(handler instanceof SupportsChangeDetection)) {
+				continue;
+			}
+			OffsetDateTime checkingAt = OffsetDateTime.now();
+			// allow for some clock skew between us and the backend
+			OffsetDateTime since = lastCheckedForChanges.getOrDefault(handler.getClass(), startedAt).minusMinutes(1);
+			try {
+				Set<String> changed = timed("addonindex.backend.requests",
+						() -> ((SupportsChangeDetection) handler).findChangedSince(addOns, since),
+						"backend", handler.getClass().getSimpleName(), "operation", "changed_since");
+				if (changed != null) {
+					for (String uid : changed) {
+						log.info("{} reports changes to {}, queueing it to be re-indexed",
+								handler.getClass().getSimpleName(), uid);
+						indexingService.getIndexingQueue().add(uid, IndexingQueue.Reason.NEW_RELEASE);
+					}
+					lastCheckedForChanges.put(handler.getClass(), checkingAt);
+				}
+			}
+			catch (Exception ex) {
+				log.warn("Error asking {} for changes since {}", handler.getClass().getSimpleName(), since, ex);
+			}
+		}
+	}
+
+	private void indexAll(List<AddOnToIndex> addOns) {
+		// with their uids, so that we can say which add-on failed
+		List<Map.Entry<String, Future<?>>> running = new ArrayList<>();
+		for (AddOnToIndex toIndex : addOns) {
 			log.debug("Running scheduled index for {}", toIndex.getUid());
+			if (executor == null) {
+				try {
+					getDetailsAndIndex(toIndex);
+				} catch (Exception e) {
+					log.error("Error getting details for {}", toIndex.getUid(), e);
+				}
+				continue;
+			}
+			permits.acquireUninterruptibly();
+			running.add(Map.entry(toIndex.getUid(), executor.submit(() -> {
+				try {
+					getDetailsAndIndex(toIndex);
+				}
+				finally {
+					permits.release();
+				}
+			})));
+		}
+		for (Map.Entry<String, Future<?>> entry : running) {
 			try {
-				getDetailsAndIndex(toIndex);
-			} catch (Exception e) {
-				log.error("Error getting details for {}", toIndex.getUid(), e);
+				entry.getValue().get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (ExecutionException e) {
+				log.error("Error getting details for {}", entry.getKey(), e.getCause());
 			}
 		}
 	}
 	
+	private <T> T timed(String name, Callable<T> call, String... tags) throws Exception {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String outcome = "error";
+		try {
+			T result = call.call();
+			outcome = "success";
+			return result;
+		}
+		finally {
+			sample.stop(meterRegistry.timer(name, Tags.of(tags).and("outcome", outcome)));
+		}
+	}
+	
 	void setFetchExtraDetails(boolean fetchExtraDetails) {
 		this.fetchExtraDetails = fetchExtraDetails;
 	}
 	
 	void getDetailsAndIndex(AddOnToIndex toIndex) {
+		OffsetDateTime started = OffsetDateTime.now();
+		long startNanos = System.nanoTime();
+		LongAdder bytesFetched = new LongAdder();
 		indexingService.getIndexingStatus().setStatus(toIndex, IndexingStatus.Status.indexingNow());
 		try {
+			AddOnInfoAndVersions existing = indexingService.getByUid(toIndex.getUid());
 			BackendHandler handler = indexingService.getHandlerFor(toIndex);
-			AddOnInfoAndVersions infoAndVersions = handler.getInfoAndVersionsFor(toIndex);
+			AddOnInfoAndVersions infoAndVersions = timed("addonindex.backend.requests",
+					() -> handler.getInfoAndVersionsFor(toIndex),
+					"backend", handler.getClass().getSimpleName(), "operation", "info_and_versions");
 			if (log.isDebugEnabled()) {
 				log.debug("{} has {} versions", toIndex.getUid(), infoAndVersions.getVersions().size());
 			}
 			
 			if (fetchExtraDetails) {
 				if (handler instanceof SupportsDownloadCounts) {
-					((SupportsDownloadCounts) handler).fetchDownloadCounts(toIndex, infoAndVersions);
+					timed("addonindex.backend.requests", () -> {
+						((SupportsDownloadCounts) handler).fetchDownloadCounts(toIndex, infoAndVersions);
+						return null;
+					}, "backend", handler.getClass().getSimpleName(), "operation", "download_counts");
 				}
-				fetchExtraDetailsForEachVersion(toIndex, infoAndVersions);
+				fetchExtraDetailsForEachVersion(toIndex, infoAndVersions, existing, bytesFetched);
 			}
 
 			infoAndVersions.setDetailsBasedOnLatestVersion();
-			indexingService.index(infoAndVersions);
-			indexingService.getIndexingStatus().setStatus(toIndex,
-					IndexingStatus.Status.success(new AddOnInfoSummary(infoAndVersions)));
+			indexingService.index(infoAndVersions, existing);
+			IndexingStatus.Status success = IndexingStatus.Status.success(new AddOnInfoSummary(infoAndVersions));
+			success.setFingerprint(toIndex.definitionFingerprint());
+			indexingService.getIndexingStatus().setStatus(toIndex, success);
+			indexingService.getIndexingStatus().recordAttempt(toIndex, new IndexingAttempt(started,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), IndexingAttempt.Outcome.SUCCESS,
+					bytesFetched.sum(), null));
 		}
 		catch (Exception ex) {
 			log.error("Error indexing {}", toIndex.getUid(), ex);
 			indexingService.getIndexingStatus().setStatus(toIndex, IndexingStatus.Status.error(ex));
+			indexingService.getIndexingStatus().recordAttempt(toIndex, new IndexingAttempt(started,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), IndexingAttempt.Outcome.ERROR,
+					bytesFetched.sum(), ex.toString()));
 		}
 	}
 	
-	void fetchExtraDetailsForEachVersion(AddOnToIndex toIndex, AddOnInfoAndVersions infoAndVersions) throws Exception {
-		AddOnInfoAndVersions existingInfo = indexingService.getByUid(toIndex.getUid());
+	void fetchExtraDetailsForEachVersion(AddOnToIndex toIndex, AddOnInfoAndVersions infoAndVersions,
+	                                     AddOnInfoAndVersions existingInfo, LongAdder bytesFetched) throws Exception {
 
 		for (ListIterator<AddOnVersion> iter = infoAndVersions.getVersions().listIterator(); iter.hasNext(); ) {
 			AddOnVersion version = iter.next();
@@ -136,17 +360,17 @@ public class FetchDetailsToIndex {
 
 					log.debug("Using existing data for {} versions {}", toIndex.getUid(), version.getVersion());
 					iter.set(existingVersion.get());
+					meterRegistry.counter("addonindex.version_details.cache", "result", "hit").increment();
 					continue;
 				}
 			}
 			try {
 				if (toIndex.getType() == AddOnType.OMOD) {
 					log.info("Fetching OMOD for {} {}", toIndex.getUid(), version.getVersion());
-					String configXml = fetchConfigXml(version);
-					if (configXml == null) {
+					meterRegistry.counter("addonindex.version_details.cache", "result", "miss").increment();
+					Resource omod = timed("addonindex.configxml.fetch", () -> fetchOmod(version, bytesFetched));
+					if (omod == null || !timed("addonindex.configxml.parse", () -> handleConfigXmlIn(omod, version))) {
 						throw new IllegalArgumentException("No config.xml file in " + version.getDownloadUri());
-					} else {
-						handleConfigXml(configXml, version);
 					}
 				}
 			}
@@ -157,83 +381,99 @@ public class FetchDetailsToIndex {
 		}
 	}
 	
-	String fetchConfigXml(AddOnVersion addOnVersion) throws IOException {
+	Resource fetchOmod(AddOnVersion addOnVersion, LongAdder bytesFetched) {
 		log.info("fetching config.xml from {}", addOnVersion.getDownloadUri());
 		Resource resource = restTemplateBuilder.build().getForObject(addOnVersion.getDownloadUri(), Resource.class);
 		if (resource != null) {
-			try (InputStream inputStream = resource.getInputStream();
-			     ZipInputStream zis = new ZipInputStream(new BufferedInputStream(inputStream))
-			) {
-				ZipEntry entry;
-				while ((entry = zis.getNextEntry()) != null) {
-					if (entry.getName().equals("config.xml")) {
-						return StreamUtils.copyToString(zis, Charset.defaultCharset());
-					}
-				}
+			try {
+				bytesFetched.add(Math.max(0, resource.contentLength()));
+			}
+			catch (IOException ex) {
+				// only used for statistics
 			}
 		}
-
-		return null;
+		return resource;
 	}
-	
-	void handleConfigXml(String configXml, AddOnVersion addOnVersion) throws Exception {
-		// sometimes this says something like <!DOCTYPE ... "../lib-common/config-1.0.dtd">
-		// we don't need DTD validation in any case, so we strip any DOCTYPE
-		configXml = configXml.replaceAll("(?s)<!DOCTYPE .*?>", "");
-		XPath xpath = XPathFactory.newInstance().newXPath();
-		Document config = documentBuilderFactory.newDocumentBuilder().parse(
-				new InputSource(new StringReader(configXml)));
-		handleRequireOpenmrsVersion(addOnVersion, xpath, config);
-		handleRequireModules(addOnVersion, xpath, config);
-		handleSupportedLanguages(addOnVersion, xpath, config);
-		handleModuleIdAndPackage(addOnVersion, xpath, config);
 
-	}
-	
-	private void handleSupportedLanguages(AddOnVersion addOnVersion, XPath xpath, Document config)
-			throws XPathExpressionException {
-		NodeList nodeList = (NodeList) xpath.evaluate("/module/messages/lang", config, XPathConstants.NODESET);
-		for (int i = 0; i < nodeList.getLength(); ++i) {
-			Node item = nodeList.item(i);
-			addOnVersion.addLanguage(item.getTextContent().trim());
+	/**
+	 * @return false if there is no config.xml in omod
+	 */
+	boolean handleConfigXmlIn(Resource omod, AddOnVersion addOnVersion) throws Exception {
+		try (InputStream inputStream = omod.getInputStream();
+		     ZipInputStream zis = new ZipInputStream(new BufferedInputStream(inputStream))
+		) {
+			ZipEntry entry;
+			while ((entry = zis.getNextEntry()) != null) {
+				if (entry.getName().equals("config.xml")) {
+					handleConfigXml(zis, addOnVersion);
+					return true;
+				}
+			}
 		}
+		return false;
 	}
-	
-	private void handleRequireModules(AddOnVersion addOnVersion, XPath xpath, Document config)
-			throws XPathExpressionException {
-		NodeList nodeList = (NodeList) xpath.evaluate("/module/require_modules/require_module", config,
-				XPathConstants.NODESET);
-		for (int i = 0; i < nodeList.getLength(); ++i) {
-			Node item = nodeList.item(i);
-			Node version = item.getAttributes().getNamedItem("version");
-			String requiredModule = item.getTextContent().trim();
-			String requiredVersion = version == null ? null : version.getTextContent().trim();
-			// sometimes modules are inadvertently uploaded without substituting maven variables in config.xml and we end
-			// up with a required module version like ${reportingVersion}
-			if (requiredVersion != null && requiredVersion.startsWith("${")) {
-				requiredVersion = null;
-			}
-			addOnVersion.addRequiredModule(requiredModule, requiredVersion);
+
+	/**
+	 * Picks what we need out of config.xml in a single pass. The parser never reads a DOCTYPE's DTD, which is just as
+	 * well because it is sometimes a relative path like "../lib-common/config-1.0.dtd".
+	 */
+	void handleConfigXml(InputStream configXml, AddOnVersion addOnVersion) throws XMLStreamException {
+		XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(configXml);
+		try {
+			StringBuilder path = new StringBuilder();
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.END_ELEMENT) {
+					path.setLength(path.lastIndexOf("/"));
+				}
+				if (event != XMLStreamConstants.START_ELEMENT) {
+					continue;
+				}
+				path.append('/').append(reader.getLocalName());
+				switch (path.toString()) {
+					case "/module/require_version":
+						String requireVersion = reader.getElementText().trim();
+						if (addOnVersion.getRequireOpenmrsVersion() == null && StringUtils.hasText(requireVersion)) {
+							addOnVersion.setRequireOpenmrsVersion(requireVersion);
+						}
+						break;
+					case "/module/require_modules/require_module":
+						String requiredVersion = reader.getAttributeValue(null, "version");
+						String requiredModule = reader.getElementText().trim();
+						// sometimes modules are inadvertently uploaded without substituting maven variables in config.xml
+						// and we end up with a required module version like ${reportingVersion}
+						if (requiredVersion != null) {
+							requiredVersion = requiredVersion.trim();
+							if (requiredVersion.startsWith("${")) {
+								requiredVersion = null;
+							}
+						}
+						addOnVersion.addRequiredModule(requiredModule, requiredVersion);
+						break;
+					case "/module/messages/lang":
+						addOnVersion.addLanguage(reader.getElementText().trim());
+						break;
+					case "/module/package":
+						String modulePackage = reader.getElementText().trim();
+						if (addOnVersion.getModulePackage() == null && StringUtils.hasText(modulePackage)) {
+							addOnVersion.setModulePackage(modulePackage);
+						}
+						break;
+					case "/module/id":
+						String moduleId = reader.getElementText().trim();
+						if (addOnVersion.getModuleId() == null && StringUtils.hasText(moduleId)) {
+							addOnVersion.setModuleId(moduleId);
+						}
+						break;
+					default:
+						continue;
+				}
+				// getElementText() has consumed the end of the element
+				path.setLength(path.lastIndexOf("/"));
+			}
+		}
+		finally {
+			reader.close();
 		}
 	}
-	
-	private void handleRequireOpenmrsVersion(AddOnVersion addOnVersion, XPath xpath, Document config)
-			throws XPathExpressionException {
-		Object str = xpath.evaluate("/module/require_version/text()", config, XPathConstants.STRING);
-		if (StringUtils.hasText((String) str)) {
-			addOnVersion.setRequireOpenmrsVersion(((String) str).trim());
-		}
-	}
-
-	private void  handleModuleIdAndPackage(AddOnVersion addOnVersion, XPath xpath,
-                                           Document config) throws XPathExpressionException{
-        Object modulePackage = xpath.evaluate("/module/package/text()", config, XPathConstants.STRING);
-        Object moduleId = xpath.evaluate("/module/id/text()", config, XPathConstants.STRING);
-        if (StringUtils.hasText((String) modulePackage)) {
-            addOnVersion.setModulePackage(((String) modulePackage).trim());
-        }
-        if (StringUtils.hasText((String) moduleId)) {
-            addOnVersion.setModuleId(((String) moduleId).trim());
-        }
-    }
 }
@@ -0,0 +1,132 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.scheduled;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openmrs.addonindex.domain.AddOnToIndex;
+import org.openmrs.addonindex.domain.IndexingStatus;
+import org.openmrs.addonindex.service.IndexingService;
+import org.openmrs.addonindex.service.LocalStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically saves how far indexing got for each add-on, and restores it at startup, so that after a restart
+ * {@link IndexingPriority} skips add-ons that were indexed recently instead of starting a full pass from scratch.
+ */
+@Component
+@Slf4j
+public class IndexingJournal {
+
+	static final String FILENAME = "indexing-journal.json";
+
+	private final IndexingService indexingService;
+
+	private final LocalStore localStore;
+
+	private long savedModifications = -1;
+
+	@Autowired
+	public IndexingJournal(IndexingService indexingService, LocalStore localStore) {
+		this.indexingService = indexingService;
+		this.localStore = localStore;
+	}
+
+	@PostConstruct
+	public void restore() {
+		localStore.read(FILENAME, new TypeReference<Map<String, Entry>>() {}).ifPresent(entries -> {
+			log.info("Restoring indexing progress for {} add-ons", entries.size());
+			IndexingStatus indexingStatus = indexingService.getIndexingStatus();
+			entries.forEach((uid, entry) -> {
+				AddOnToIndex addOn = new AddOnToIndex();
+				addOn.setUid(uid);
+				indexingStatus.setStatus(addOn, entry.toStatus());
+			});
+			savedModifications = indexingStatus.getModifications();
+		});
+	}
+
+	@Scheduled(
+			initialDelayString = "${scheduler.save_indexing_journal.period}",
+			fixedDelayString = "${scheduler.save_indexing_journal.period}")
+	@PreDestroy
+	public synchronized void save() {
+		if (!localStore.isEnabled()) {
+			return;
+		}
+		IndexingStatus indexingStatus = indexingService.getIndexingStatus();
+		long modifications = indexingStatus.getModifications();
+		if (modifications == savedModifications) {
+			return;
+		}
+		Map<String, Entry> entries = new LinkedHashMap<>();
+		indexingStatus.getStatuses().forEach((uid, status) -> entries.put(uid, new Entry(status)));
+		try {
+			localStore.write(FILENAME, entries);
+			savedModifications = modifications;
+		}
+		catch (Exception ex) {
+			log.warn("Failed to save indexing progress", ex);
+		}
+	}
+
+	@Data
+	@NoArgsConstructor
+	static class Entry {
+
+		private OffsetDateTime lastAttempt;
+
+		private OffsetDateTime lastSuccess;
+
+		private int consecutiveErrors;
+
+		private String lastError;
+
+		private Integer downloadCountInLast30Days;
+
+		private String fingerprint;
+
+		Entry(IndexingStatus.Status status) {
+			// if we're in the middle of indexing this, lastIndexed still refers to the previous attempt
+			lastAttempt = status.getLastIndexed();
+			lastSuccess = status.getLastSuccess();
+			consecutiveErrors = status.getConsecutiveErrors();
+			lastError = status.getError() == null ? null : String.valueOf(status.getError().getMessage());
+			downloadCountInLast30Days = status.getDownloadCountInLast30Days();
+			fingerprint = status.getFingerprint();
+		}
+
+		IndexingStatus.Status toStatus() {
+			IndexingStatus.Status status = new IndexingStatus.Status();
+			status.setLastIndexed(lastAttempt);
+			status.setLastSuccess(lastSuccess);
+			status.setConsecutiveErrors(consecutiveErrors);
+			if (consecutiveErrors > 0) {
+				status.setError(new Exception("Before restarting: " + lastError));
+			}
+			status.setDownloadCountInLast30Days(downloadCountInLast30Days);
+			status.setFingerprint(fingerprint);
+			return status;
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.scheduled;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.openmrs.addonindex.domain.AddOnStatus;
+import org.openmrs.addonindex.domain.AddOnToIndex;
+import org.openmrs.addonindex.domain.IndexingStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides which add-ons a full indexing pass should fetch details for, and in what order. Popular add-ons are
+ * refreshed on every pass, other active ones less often, and inactive or deprecated ones rarely. Add-ons we have never
+ * indexed come first, and recent failures are retried on the next few passes before falling back to their usual
+ * interval.
+ */
+@Component
+public class IndexingPriority {
+
+	private final Duration period;
+
+	private final int popularDownloads;
+
+	private final Duration activeInterval;
+
+	private final Duration inactiveInterval;
+
+	private final int retryErrors;
+
+	public IndexingPriority(@Value("${scheduler.fetch_details_to_index.period}") long periodMillis,
+	                        @Value("${scheduler.fetch_details_to_index.priority.popular_downloads}") int popularDownloads,
+	                        @Value("${scheduler.fetch_details_to_index.priority.active_interval}") long activeIntervalMillis,
+	                        @Value("${scheduler.fetch_details_to_index.priority.inactive_interval}") long inactiveIntervalMillis,
+	                        @Value("${scheduler.fetch_details_to_index.priority.retry_errors}") int retryErrors) {
+		this.period = Duration.ofMillis(periodMillis);
+		this.popularDownloads = popularDownloads;
+		this.activeInterval = Duration.ofMillis(activeIntervalMillis);
+		this.inactiveInterval = Duration.ofMillis(inactiveIntervalMillis);
+		this.retryErrors = retryErrors;
+	}
+
+	/**
+	 * @param toIndex  all add-ons we are supposed to index
+	 * @param statuses their current statuses
+	 * @param now
+	 * @return those add-ons that are due to be indexed, most important first
+	 */
+	public List<AddOnToIndex> dueForIndexing(Collection<AddOnToIndex> toIndex, IndexingStatus statuses,
+	                                         OffsetDateTime now) {
+		Map<AddOnToIndex, IndexingStatus.Status> current = statuses.getStatusesFor(toIndex);
+		return toIndex.stream()
+				.filter(addOn -> isDue(addOn, current.get(addOn), now))
+				.sorted(Comparator.comparingDouble(addOn -> -score(addOn, current.get(addOn), now)))
+				.collect(Collectors.toList());
+	}
+
+	boolean isDue(AddOnToIndex toIndex, IndexingStatus.Status status, OffsetDateTime now) {
+		if (status == null || status.getLastIndexed() == null) {
+			return true;
+		}
+		if (status.getError() != null && status.getConsecutiveErrors() <= retryErrors) {
+			return true;
+		}
+		if (status.getFingerprint() != null && !status.getFingerprint().equals(toIndex.definitionFingerprint())) {
+			// its definition changed while we weren't looking, e.g. while we were restarting
+			return true;
+		}
+		// passes don't start at exactly the same time, so allow for some slack
+		OffsetDateTime dueAt = status.getLastIndexed().plus(refreshIntervalFor(toIndex, status)).minus(period.dividedBy(2));
+		return !dueAt.isAfter(now);
+	}
+
+	Duration refreshIntervalFor(AddOnToIndex toIndex, IndexingStatus.Status status) {
+		if (toIndex.getStatus() == AddOnStatus.INACTIVE || toIndex.getStatus() == AddOnStatus.DEPRECATED) {
+			return inactiveInterval;
+		}
+		if (downloadsFor(status) >= popularDownloads) {
+			return period;
+		}
+		return activeInterval;
+	}
+
+	/**
+	 * Higher is more important. Roughly: how many refresh intervals overdue this is, weighted by popularity, and halved
+	 * if the last attempt failed (so that a broken backend doesn't crowd out healthy add-ons).
+	 */
+	double score(AddOnToIndex toIndex, IndexingStatus.Status status, OffsetDateTime now) {
+		if (status == null || status.getLastSuccess() == null && status.getError() == null) {
+			return Double.MAX_VALUE;
+		}
+		OffsetDateTime since = status.getLastSuccess() != null ? status.getLastSuccess() : status.getLastIndexed();
+		double overdue = (double) Duration.between(since, now).toMillis()
+				/ Math.max(1, refreshIntervalFor(toIndex, status).toMillis());
+		double score = overdue * (1 + Math.log10(1 + downloadsFor(status)));
+		if (status.getError() != null) {
+			score /= 2;
+		}
+		return score;
+	}
+
+	private int downloadsFor(IndexingStatus.Status status) {
+		return status == null || status.getDownloadCountInLast30Days() == null ? 0 : status.getDownloadCountInLast30Days();
+	}
+
+}
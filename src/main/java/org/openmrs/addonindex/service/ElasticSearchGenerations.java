@@ -0,0 +1,310 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Requests;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.client.indices.GetMappingsRequest;
+import org.elasticsearch.cluster.metadata.MappingMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.ReindexRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.AddOnInfoSummary;
+import org.springframework.util.DigestUtils;
+
+/**
+ * The add-on index is kept as a series of generations: concrete indices named like add_on_info_and_versions-{millis},
+ * with the {@link AddOnInfoAndVersions#ES_INDEX} alias pointing at the live one. A new generation is built while the
+ * live one keeps serving, and only becomes visible when the alias is moved over to it, in one atomic step. That
+ * happens on each full indexing pass, and at startup if the mappings have changed, or if the index is still a plain
+ * index from before we had generations.
+ */
+@Slf4j
+class ElasticSearchGenerations {
+
+	private static final String ALIAS = AddOnInfoAndVersions.ES_INDEX;
+
+	private static final String MAPPING_HASH = "mapping_hash";
+
+	private static final int BULK_ACTIONS = 100;
+
+	private final RestHighLevelClient client;
+
+	private final Map<String, Object> mappings;
+
+	private final String settings;
+
+	private final String mappingHash;
+
+	private final int oldGenerationsToKeep;
+
+	ElasticSearchGenerations(RestHighLevelClient client, ObjectMapper objectMapper, String mappingsJson,
+	                         String settingsJson, int oldGenerationsToKeep) throws IOException {
+		this.client = client;
+		this.oldGenerationsToKeep = oldGenerationsToKeep;
+		this.settings = settingsJson;
+		// the analyzers that the mappings refer to live in the settings, so a change to either needs a new generation
+		this.mappingHash = DigestUtils.md5DigestAsHex((mappingsJson + settingsJson).getBytes());
+		this.mappings = new TreeMap<>(objectMapper.readValue(mappingsJson, new TypeReference<Map<String, Object>>() {}));
+		this.mappings.put("_meta", Collections.singletonMap(MAPPING_HASH, mappingHash));
+	}
+
+	/**
+	 * @return the live generation, which is a new one if there wasn't one with the current mappings
+	 */
+	String setUp() throws IOException {
+		String live = getLive();
+		if (live != null && mappingHash.equals(getMappingHash(live))) {
+			log.info("Using ES index {}", live);
+			return live;
+		}
+
+		String legacy = null;
+		if (live == null && client.indices().exists(new GetIndexRequest(ALIAS), RequestOptions.DEFAULT)) {
+			legacy = ALIAS;
+		}
+		String generation = create();
+		if (live != null || legacy != null) {
+			log.info("Mappings have changed, copying {} into new ES index {}", live != null ? live : legacy, generation);
+			copyMissing(live != null ? live : legacy, generation);
+		}
+		activate(generation, live, legacy);
+		return generation;
+	}
+
+	/**
+	 * Creates a new generation, with refresh turned off since nothing reads it until it's complete, and a bulk processor
+	 * to write to it with
+	 */
+	Build startBuild() throws IOException {
+		String generation = create();
+		log.info("Building new ES index {}", generation);
+		BulkProcessor bulk = BulkProcessor.builder(
+				(request, listener) -> client.bulkAsync(request, RequestOptions.DEFAULT, listener),
+				new LoggingListener(generation), "build-" + generation)
+				.setBulkActions(BULK_ACTIONS)
+				.setFlushInterval(TimeValue.timeValueSeconds(5))
+				.setConcurrentRequests(1)
+				.build();
+		return new Build(generation, bulk);
+	}
+
+	/**
+	 * Copies over whatever wasn't indexed during the build (e.g. because fetching it failed) from the live generation,
+	 * and switches to the new one. Nothing must be written to the live generation meanwhile, since the copy skips
+	 * anything the new one already has.
+	 */
+	void finishBuild(Build build, String live) throws IOException {
+		try {
+			if (!build.bulk.awaitClose(1, TimeUnit.MINUTES)) {
+				throw new IOException("Timed out writing to " + build.generation);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted writing to " + build.generation);
+		}
+		copyMissing(live, build.generation);
+		activate(build.generation, live, null);
+	}
+
+	void abandonBuild(Build build) {
+		build.bulk.close();
+		try {
+			client.indices().delete(new DeleteIndexRequest(build.generation), RequestOptions.DEFAULT);
+		}
+		catch (Exception ex) {
+			log.warn("Failed to delete abandoned ES index {}", build.generation, ex);
+		}
+	}
+
+	private String getLive() throws IOException {
+		return client.indices().getAlias(new GetAliasesRequest(ALIAS), RequestOptions.DEFAULT)
+				.getAliases().keySet().stream().findFirst().orElse(null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private String getMappingHash(String generation) throws IOException {
+		MappingMetadata mapping = client.indices().getMapping(new GetMappingsRequest().indices(generation),
+				RequestOptions.DEFAULT).mappings().get(generation);
+		Object meta = mapping == null ? null : mapping.getSourceAsMap().get("_meta");
+		return meta instanceof Map ? (String) ((Map<String, Object>) meta).get(MAPPING_HASH) : null;
+	}
+
+	private String create() throws IOException {
+		String generation = ALIAS + "-" + System.currentTimeMillis();
+		client.indices().create(new CreateIndexRequest(generation)
+				.mapping(mappings)
+				.settings(Settings.builder()
+						.loadFromSource(settings, XContentType.JSON)
+						.put("index.refresh_interval", "-1")), RequestOptions.DEFAULT);
+		return generation;
+	}
+
+	/**
+	 * Copies documents from one index to another on the ES server, skipping any that are already there
+	 */
+	private void copyMissing(String from, String to) throws IOException {
+		ReindexRequest request = new ReindexRequest()
+				.setSourceIndices(from)
+				.setDestIndex(to)
+				.setDestOpType("create");
+		request.setConflicts("proceed");
+		BulkByScrollResponse response = client.reindex(request, RequestOptions.DEFAULT);
+		log.info("Copied {} documents from {} to {}", response.getCreated(), from, to);
+	}
+
+	/**
+	 * Turns refresh back on, warms the new generation up with the kind of queries it will get, then moves the alias
+	 * over to it, and deletes generations we no longer need
+	 */
+	private void activate(String generation, String live, String legacy) throws IOException {
+		client.indices().putSettings(new UpdateSettingsRequest(generation)
+				.settings(Settings.builder().putNull("index.refresh_interval")), RequestOptions.DEFAULT);
+		client.indices().refresh(new RefreshRequest(generation), RequestOptions.DEFAULT);
+		long count = client.count(new CountRequest(generation), RequestOptions.DEFAULT).getCount();
+		client.search(Requests.searchRequest(generation).source(SearchSourceBuilder.searchSource()
+				.query(QueryBuilders.matchAllQuery())
+				.sort(SortBuilders.fieldSort("downloadCountInLast30Days").order(SortOrder.DESC))
+				.fetchSource(AddOnInfoSummary.SOURCE_FIELDS, null)
+				.size(Index.MAX_PAGE_SIZE)), RequestOptions.DEFAULT);
+
+		IndicesAliasesRequest aliases = new IndicesAliasesRequest();
+		aliases.addAliasAction(AliasActions.add().index(generation).alias(ALIAS));
+		if (live != null) {
+			aliases.addAliasAction(AliasActions.remove().index(live).alias(ALIAS));
+		}
+		if (legacy != null) {
+			// an index and an alias can't share a name, so the old index has to go in the same step
+			aliases.addAliasAction(AliasActions.removeIndex().index(legacy));
+		}
+		client.indices().updateAliases(aliases, RequestOptions.DEFAULT);
+		log.info("ES index {} is now live, with {} documents", generation, count);
+
+		deleteOldGenerations(generation);
+	}
+
+	private void deleteOldGenerations(String live) {
+		try {
+			String[] generations = client.indices().get(new GetIndexRequest(ALIAS + "-*"), RequestOptions.DEFAULT)
+					.getIndices();
+			List<String> old = Arrays.stream(generations)
+					.filter(generation -> !generation.equals(live))
+					.sorted(Comparator.reverseOrder())
+					.skip(oldGenerationsToKeep)
+					.collect(Collectors.toList());
+			if (!old.isEmpty()) {
+				log.info("Deleting old ES indices {}", old);
+				client.indices().delete(new DeleteIndexRequest(old.toArray(new String[0])), RequestOptions.DEFAULT);
+			}
+		}
+		catch (Exception ex) {
+			log.warn("Failed to delete old ES indices", ex);
+		}
+	}
+
+	/**
+	 * A generation that is being built
+	 */
+	static class Build {
+
+		private final String generation;
+
+		private final BulkProcessor bulk;
+
+		Build(String generation, BulkProcessor bulk) {
+			this.generation = generation;
+			this.bulk = bulk;
+		}
+
+		String getGeneration() {
+			return generation;
+		}
+
+		void index(String id, String json) {
+			bulk.add(new IndexRequest(generation).id(id).source(json, XContentType.JSON));
+		}
+
+		void update(String id, Map<String, Object> fields) {
+			bulk.add(new UpdateRequest(generation, id).doc(fields));
+		}
+	}
+
+	private static class LoggingListener implements BulkProcessor.Listener {
+
+		private final String generation;
+
+		LoggingListener(String generation) {
+			this.generation = generation;
+		}
+
+		@Override
+		public void beforeBulk(long executionId, BulkRequest request) {
+		}
+
+		@Override
+		public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+			// anything that failed is copied from the live index when the build finishes, including updates to add-ons
+			// that haven't been written to this generation yet, so those aren't worth a warning
+			long failed = Arrays.stream(response.getItems())
+					.filter(BulkItemResponse::isFailed)
+					.filter(item -> item.getFailure().getStatus() != RestStatus.NOT_FOUND)
+					.count();
+			if (failed > 0) {
+				log.warn("{} writes to {} failed: {}", failed, generation, response.buildFailureMessage());
+			}
+		}
+
+		@Override
+		public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+			log.warn("Writing {} documents to {} failed", request.numberOfActions(), generation, failure);
+		}
+	}
+
+}
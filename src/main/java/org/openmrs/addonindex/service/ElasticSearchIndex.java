@@ -15,90 +15,254 @@ import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.search.ClearScrollRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.client.RestHighLevelClient;
-import org.elasticsearch.client.core.CountRequest;
-import org.elasticsearch.client.core.CountResponse;
-import org.elasticsearch.client.indices.CreateIndexRequest;
-import org.elasticsearch.client.indices.PutMappingRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.BoostingQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.bucket.nested.Nested;
+import org.elasticsearch.search.aggregations.bucket.nested.ReverseNested;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnInfoSummary;
 import org.openmrs.addonindex.domain.AddOnInfoSummaryAndStats;
 import org.openmrs.addonindex.domain.AddOnType;
+import org.openmrs.addonindex.domain.ResultsPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StreamUtils;
 
 @Repository
+@ConditionalOnProperty(name = "index.backend", havingValue = "elasticsearch", matchIfMissing = true)
 @Slf4j
 public class ElasticSearchIndex implements Index {
 
-	private static final int SEARCH_SIZE = 200;
-
 	private static final int TOP_DOWNLOADS_SIZE = 20;
 
+	private static final int SCROLL_SIZE = 100;
+
+	// misspellings are almost never in the first letter, and requiring it rules out most of the term dictionary
+	private static final int FUZZY_PREFIX_LENGTH = 1;
+
+	private static final int FUZZY_MAX_EXPANSIONS = 20;
+
+	// the facets that are top-level keyword fields, and those fields
+	private static final Map<String, String> FACET_FIELDS = Map.of(
+			FacetIndex.TYPE, "type",
+			FacetIndex.TAG, "tags",
+			FacetIndex.STATUS, "status");
+
+	private static final String VERSIONS_AGGREGATION = "versions";
+
+	private static final String ADD_ONS_AGGREGATION = "addOns";
+
+	private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
 	private final RestHighLevelClient client;
 
 	private final ObjectMapper objectMapper;
 
+	private final ObjectReader summaryReader;
+
+	private final ObjectReader infoAndVersionsReader;
+
+	private final MeterRegistry meterRegistry;
+
+	// we are the only thing that writes to the index, so we can count changes ourselves
+	private final AtomicLong modifications = new AtomicLong();
+
+	private final String started = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+	private final int oldGenerationsToKeep;
+
+	// writes hold the read lock while they go to both the live generation and the one being built, so that starting
+	// and finishing a build, which hold the write lock, never see a write that has only reached one of them
+	private final ReadWriteLock buildLock = new ReentrantReadWriteLock();
+
+	private ElasticSearchGenerations generations;
+
+	// the generation that the alias points at
+	private volatile String live;
+
+	// the generation being built by a full indexing pass, if one is running, guarded by buildLock
+	private ElasticSearchGenerations.Build build;
+
 	@Autowired
-	public ElasticSearchIndex(@Qualifier("restHighLevelClient") RestHighLevelClient client, ObjectMapper objectMapper) {
+	public ElasticSearchIndex(@Qualifier("restHighLevelClient") RestHighLevelClient client, ObjectMapper objectMapper,
+	                          MeterRegistry meterRegistry,
+	                          @Value("${elasticsearch.old_generations_to_keep}") int oldGenerationsToKeep) {
 		this.client = client;
 		this.objectMapper = objectMapper;
+		this.summaryReader = objectMapper.readerFor(AddOnInfoSummary.class);
+		this.infoAndVersionsReader = objectMapper.readerFor(AddOnInfoAndVersions.class);
+		this.meterRegistry = meterRegistry;
+		this.oldGenerationsToKeep = oldGenerationsToKeep;
 	}
 
 	@PostConstruct
 	public void setUp() throws IOException {
+		generations = new ElasticSearchGenerations(client, objectMapper,
+				loadResource("elasticsearch/addOnInfoAndVersions-mappings.json"),
+				loadResource("elasticsearch/addOnInfoAndVersions-settings.json"), oldGenerationsToKeep);
+		live = generations.setUp();
+	}
+
+	@Override
+	public void index(AddOnInfoAndVersions infoAndVersions) throws IOException {
+		String json = objectMapper.writeValueAsString(infoAndVersions);
+		buildLock.readLock().lock();
 		try {
-			CountResponse response = client.count(new CountRequest(AddOnInfoAndVersions.ES_INDEX), RequestOptions.DEFAULT);
-			log.info("Existing ES index with {} documents", response.getCount());
-		}
-		catch (ElasticsearchException e) {
-			if (e.status().getStatus() == 404) {
-				// need to create the index
-				log.info("Creating new ES index: {}", AddOnInfoAndVersions.ES_INDEX);
-				client.indices().create(new CreateIndexRequest(AddOnInfoAndVersions.ES_INDEX), RequestOptions.DEFAULT);
-			} else {
-				throw e;
+			timed("index", () -> client.index(
+					Requests.indexRequest(AddOnInfoAndVersions.ES_INDEX)
+							.id(infoAndVersions.getUid())
+							.source(json, XContentType.JSON),
+					RequestOptions.DEFAULT));
+			modifications.incrementAndGet();
+			if (build != null) {
+				build.index(infoAndVersions.getUid(), json);
 			}
 		}
+		finally {
+			buildLock.readLock().unlock();
+		}
+	}
 
-		log.info("Updating mappings on ES index");
-		client.indices().putMapping(new PutMappingRequest(AddOnInfoAndVersions.ES_INDEX)
-						.source(loadResource("elasticsearch/addOnInfoAndVersions-mappings.json"), XContentType.JSON),
-				RequestOptions.DEFAULT);
+	/**
+	 * Sends ES just the changed fields. ES still re-indexes the whole document internally, but we skip serializing and
+	 * sending every version, and ES skips the write if the values are the same.
+	 */
+	@Override
+	public void updateFields(String uid, Map<String, Object> fields) throws IOException {
+		buildLock.readLock().lock();
+		try {
+			timed("updateFields", () -> client.update(
+					new UpdateRequest(AddOnInfoAndVersions.ES_INDEX, uid).doc(fields), RequestOptions.DEFAULT));
+			modifications.incrementAndGet();
+			if (build != null) {
+				build.update(uid, fields);
+			}
+		}
+		finally {
+			buildLock.readLock().unlock();
+		}
 	}
 
 	@Override
-	public void index(AddOnInfoAndVersions infoAndVersions) throws IOException {
-		client.index(
-				Requests.indexRequest(AddOnInfoAndVersions.ES_INDEX)
-						.id(infoAndVersions.getUid())
-						.source(objectMapper.writeValueAsString(infoAndVersions), XContentType.JSON),
-				RequestOptions.DEFAULT);
+	public void startRebuild() throws IOException {
+		buildLock.writeLock().lock();
+		try {
+			if (build == null) {
+				build = generations.startBuild();
+			}
+		}
+		finally {
+			buildLock.writeLock().unlock();
+		}
 	}
 
+	/**
+	 * Writes wait until this has finished. Otherwise a write made after copying from the live generation had started
+	 * would reach only the live generation, which is about to be replaced.
+	 */
 	@Override
-	public Collection<AddOnInfoSummary> search(AddOnType type, String query, String tag) throws IOException {
+	public void finishRebuild() throws IOException {
+		buildLock.writeLock().lock();
+		try {
+			ElasticSearchGenerations.Build finished = build;
+			build = null;
+			if (finished == null) {
+				return;
+			}
+			try {
+				live = timed("finishRebuild", () -> {
+					generations.finishBuild(finished, live);
+					return finished.getGeneration();
+				});
+			}
+			catch (IOException | RuntimeException ex) {
+				generations.abandonBuild(finished);
+				throw ex;
+			}
+		}
+		finally {
+			buildLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Fuzzy matching is the most expensive clause, so we first search without it, and only search again with it if that
+	 * finds fewer than {@link Index#FUZZY_BELOW} add-ons. The cursor remembers which of the two we're paging through.
+	 * Facets are counted by terms aggregations in the same request.
+	 */
+	@Override
+	public ResultsPage<AddOnInfoSummary> search(AddOnType type, String query, String tag, Collection<String> uids,
+	                                            boolean facets, int size, String after) throws IOException {
+		boolean fuzzy = false;
+		Object[] searchAfter = null;
+		if (after != null) {
+			Object[] cursor = SearchCursor.decode(after, Number.class, String.class, Boolean.class);
+			searchAfter = new Object[] { cursor[0], cursor[1] };
+			fuzzy = (Boolean) cursor[2];
+		}
+
+		SearchRequest request = searchRequest(type, query, tag, uids, fuzzy, facets, searchAfter, size);
+		SearchResponse response = timed("search", () -> client.search(request, RequestOptions.DEFAULT));
+		if (after == null && query != null && response.getHits().getTotalHits().value < Index.FUZZY_BELOW) {
+			fuzzy = true;
+			SearchRequest fuzzyRequest = searchRequest(type, query, tag, uids, true, facets, null, size);
+			response = timed("search_fuzzy", () -> client.search(fuzzyRequest, RequestOptions.DEFAULT));
+		}
+		ResultsPage<AddOnInfoSummary> page = readPage(response, size, summaryReader, fuzzy);
+		if (facets) {
+			page.setFacets(readFacets(response));
+		}
+		return page;
+	}
+
+	private SearchRequest searchRequest(AddOnType type, String query, String tag, Collection<String> uids,
+	                                    boolean fuzzy, boolean facets, Object[] searchAfter, int size) {
 		BoolQueryBuilder boolQB = QueryBuilders.boolQuery();
 		if (type != null) {
 			//Exact match on type
@@ -109,6 +273,10 @@ public class ElasticSearchIndex implements Index {
 			boolQB.filter(QueryBuilders.matchQuery("tags", tag));
 		}
 
+		if (uids != null) {
+			boolQB.filter(QueryBuilders.idsQuery().addIds(uids.toArray(new String[0])));
+		}
+
 		if (query != null) {
 			//Exact match on id(Highest priority)
 			boolQB.should(QueryBuilders.termQuery("_id", query).boost(1700.0f));
@@ -116,8 +284,13 @@ public class ElasticSearchIndex implements Index {
 			//Exact match on tag(High priority)
 			boolQB.should(QueryBuilders.termQuery("tags", query).boost(1500.0f));
 
-			//Prefix match of module name(Medium priority)
-			boolQB.should(QueryBuilders.prefixQuery("name", query).boost(8.0f));
+			//Query is the whole module name, ignoring case(Medium priority)
+			boolQB.should(QueryBuilders.constantScoreQuery(
+					QueryBuilders.matchQuery("name.keyword", query)).boost(10.0f));
+
+			//Each word of the query starts a word of the module name, as it is being typed(Medium priority)
+			boolQB.should(QueryBuilders.constantScoreQuery(
+					QueryBuilders.matchQuery("name.prefix", query).operator(Operator.AND)).boost(8.0f));
 
 			//Query is subset of module name(Medium priority)
 			boolQB.should(QueryBuilders.matchQuery("name", query).boost(4.0f));
@@ -125,8 +298,13 @@ public class ElasticSearchIndex implements Index {
 			//Description matches query either completely or partially(Low priority)
 			boolQB.should(QueryBuilders.matchQuery("description", query).boost(2.0f));
 
-			//Allow for spelling mistake while searching for a particular module
-			boolQB.should(QueryBuilders.fuzzyQuery("name", query));
+			if (fuzzy) {
+				//Allow for spelling mistake while searching for a particular module, bounded so that it doesn't expand
+				//over the whole term dictionary
+				boolQB.should(QueryBuilders.fuzzyQuery("name", query)
+						.prefixLength(FUZZY_PREFIX_LENGTH)
+						.maxExpansions(FUZZY_MAX_EXPANSIONS));
+			}
 			boolQB.minimumShouldMatch(1);
 		}
 
@@ -135,75 +313,246 @@ public class ElasticSearchIndex implements Index {
 				boolQB, QueryBuilders.termsQuery("status", "DEPRECATED", "INACTIVE"))
 				.negativeBoost(0.001f);
 
-		SearchResponse response = client.search(
-				Requests.searchRequest(AddOnInfoAndVersions.ES_INDEX)
-						.source(SearchSourceBuilder.searchSource().size(SEARCH_SIZE).query(boostingQB)), RequestOptions.DEFAULT);
+		SearchSourceBuilder source = SearchSourceBuilder.searchSource()
+				.query(boostingQB)
+				.fetchSource(AddOnInfoSummary.SOURCE_FIELDS, null)
+				.sort(SortBuilders.scoreSort())
+				.sort(uidSort());
+		if (searchAfter != null) {
+			source.searchAfter(searchAfter);
+		}
+		if (facets) {
+			FACET_FIELDS.forEach((facet, field) -> source.aggregation(
+					AggregationBuilders.terms(facet).field(field).size(Index.MAX_FACET_VALUES)));
+			// languages are per version, but we count add-ons, and order by that count
+			source.aggregation(AggregationBuilders.nested(VERSIONS_AGGREGATION, "versions").subAggregation(
+					AggregationBuilders.terms(FacetIndex.LANGUAGE).field("versions.supportedLanguages")
+							.size(Index.MAX_FACET_VALUES)
+							.order(BucketOrder.compound(BucketOrder.aggregation(ADD_ONS_AGGREGATION, false),
+									BucketOrder.key(true)))
+							.subAggregation(AggregationBuilders.reverseNested(ADD_ONS_AGGREGATION))));
+		}
+		return pageRequest(source, size);
+	}
 
-		return Arrays.stream(response.getHits().getHits())
-				.filter(SearchHit::hasSource)
-				.map(hit -> objectMapper.convertValue(hit.getSourceAsMap(), AddOnInfoSummary.class))
-				.collect(Collectors.toList());
+	private Map<String, Map<String, Long>> readFacets(SearchResponse response) {
+		FacetCounts counts = new FacetCounts();
+		for (String facet : FACET_FIELDS.keySet()) {
+			Terms terms = response.getAggregations().get(facet);
+			terms.getBuckets().forEach(bucket -> counts.add(facet, bucket.getKeyAsString(), bucket.getDocCount()));
+		}
+		Nested versions = response.getAggregations().get(VERSIONS_AGGREGATION);
+		Terms languages = versions.getAggregations().get(FacetIndex.LANGUAGE);
+		for (Terms.Bucket bucket : languages.getBuckets()) {
+			ReverseNested addOns = bucket.getAggregations().get(ADD_ONS_AGGREGATION);
+			counts.add(FacetIndex.LANGUAGE, bucket.getKeyAsString(), addOns.getDocCount());
+		}
+		return counts.toMap();
 	}
 
 	@Override
-	public Collection<AddOnInfoAndVersions> getAllByType(AddOnType type) throws IOException {
-		SearchResponse response = client.search(new SearchRequest(AddOnInfoAndVersions.ES_INDEX)
-						.source(new SearchSourceBuilder().size(SEARCH_SIZE).query(QueryBuilders.matchQuery("type", type))),
-				RequestOptions.DEFAULT);
-
-		return Arrays.stream(response.getHits().getHits())
-				.filter(SearchHit::hasSource)
-				.map(hit -> objectMapper.convertValue(hit.getSourceAsMap(), AddOnInfoAndVersions.class))
-				.collect(Collectors.toList());
+	public ResultsPage<AddOnInfoAndVersions> getAllByType(AddOnType type, int size, String after) throws IOException {
+		SearchSourceBuilder source = uidOrdered(QueryBuilders.matchQuery("type", type), after);
+
+		return readPage(timed("getAllByType", () -> client.search(pageRequest(source, size), RequestOptions.DEFAULT)),
+				size, infoAndVersionsReader);
 	}
 
 	@Override
 	public AddOnInfoAndVersions getByUid(String uid) throws IOException {
-		return objectMapper.convertValue(
-				client.get(Requests.getRequest(AddOnInfoAndVersions.ES_INDEX).id(uid), RequestOptions.DEFAULT).getSource(),
-				AddOnInfoAndVersions.class);
+		GetResponse response = timed("getByUid", () -> client.get(
+				Requests.getRequest(AddOnInfoAndVersions.ES_INDEX).id(uid), RequestOptions.DEFAULT));
+		if (!response.isExists() || response.isSourceEmpty()) {
+			return null;
+		}
+		return read(infoAndVersionsReader, response.getSourceAsBytesRef());
 	}
 
+	/**
+	 * One multi-get, however many uids there are
+	 */
 	@Override
-	public AddOnInfoAndVersions getByModulePackage(String modulePackage) throws IOException {
-		SearchResponse response = client.search(new SearchRequest(AddOnInfoAndVersions.ES_INDEX)
-				.source(new SearchSourceBuilder()
-						.query(QueryBuilders.matchQuery("modulePackage", modulePackage))
-						.size(1)), RequestOptions.DEFAULT);
-
-		if (response.getHits().getHits().length == 0) {
-			return null;
+	public Map<String, AddOnInfoAndVersions> getByUids(Collection<String> uids) throws IOException {
+		Map<String, AddOnInfoAndVersions> found = new LinkedHashMap<>();
+		if (uids.isEmpty()) {
+			return found;
 		}
+		MultiGetRequest request = new MultiGetRequest();
+		uids.forEach(uid -> request.add(AddOnInfoAndVersions.ES_INDEX, uid));
+		MultiGetResponse response = timed("getByUids", () -> client.mget(request, RequestOptions.DEFAULT));
+		for (MultiGetItemResponse item : response.getResponses()) {
+			if (item.isFailed()) {
+				throw new IOException("Failed to get " + item.getId(), item.getFailure().getFailure());
+			}
+			GetResponse get = item.getResponse();
+			if (get.isExists() && !get.isSourceEmpty()) {
+				found.put(item.getId(), read(infoAndVersionsReader, get.getSourceAsBytesRef()));
+			}
+		}
+		return found;
+	}
 
-		return objectMapper.convertValue(response.getHits().getAt(0), AddOnInfoAndVersions.class);
+	@Override
+	public AddOnInfoAndVersions getByModulePackage(String modulePackage) throws IOException {
+		SearchResponse response = timed("getByModulePackage", () -> client.search(
+				new SearchRequest(AddOnInfoAndVersions.ES_INDEX)
+						.source(new SearchSourceBuilder()
+								.query(QueryBuilders.matchQuery("modulePackage", modulePackage))
+								.size(1)), RequestOptions.DEFAULT));
+
+		List<AddOnInfoAndVersions> results = readHits(response, infoAndVersionsReader);
+		return results.isEmpty() ? null : results.get(0);
 	}
 
 	@Override
-	public Collection<AddOnInfoAndVersions> getByTag(String tag) throws IOException {
-		SearchResponse response = client.search(new SearchRequest(AddOnInfoAndVersions.ES_INDEX)
-						.source(new SearchSourceBuilder().size(SEARCH_SIZE).query(QueryBuilders.matchQuery("tags", tag))),
-				RequestOptions.DEFAULT);
-
-		return Arrays.stream(response.getHits().getHits())
-				.filter(SearchHit::hasSource)
-				.map(hit -> objectMapper.convertValue(hit.getSourceAsMap(), AddOnInfoAndVersions.class))
-				.collect(Collectors.toList());
+	public ResultsPage<AddOnInfoAndVersions> getByTag(String tag, int size, String after) throws IOException {
+		SearchSourceBuilder source = uidOrdered(QueryBuilders.matchQuery("tags", tag), after);
+
+		return readPage(timed("getByTag", () -> client.search(pageRequest(source, size), RequestOptions.DEFAULT)),
+				size, infoAndVersionsReader);
 	}
 
 	@Override
 	public List<AddOnInfoSummaryAndStats> getTopDownloaded() throws IOException {
-		SearchResponse response = client.search(Requests.searchRequest(AddOnInfoAndVersions.ES_INDEX)
-				.source(SearchSourceBuilder.searchSource().size(TOP_DOWNLOADS_SIZE)
-						.sort("downloadCountInLast30Days", SortOrder.DESC)
-						.query(QueryBuilders.matchAllQuery())), RequestOptions.DEFAULT);
-
-		return Arrays.stream(response.getHits().getHits())
-				.filter(SearchHit::hasSource)
-				.map(hit -> objectMapper.convertValue(hit.getSourceAsMap(), AddOnInfoAndVersions.class))
+		SearchResponse response = timed("getTopDownloaded", () -> client.search(
+				Requests.searchRequest(AddOnInfoAndVersions.ES_INDEX)
+						.source(SearchSourceBuilder.searchSource().size(TOP_DOWNLOADS_SIZE)
+								.sort("downloadCountInLast30Days", SortOrder.DESC)
+								.query(QueryBuilders.matchAllQuery())
+								.fetchSource(AddOnInfoSummary.SOURCE_FIELDS, null)), RequestOptions.DEFAULT));
+
+		return this.<AddOnInfoSummary>readHits(response, summaryReader).stream()
 				.map(AddOnInfoSummaryAndStats::new)
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Scrolls through the index in _doc order, which is the cheapest order for ES to return documents in, a page at a
+	 * time, so that we never hold more than one page.
+	 */
+	@Override
+	public void forEach(AddOnAction action) throws IOException {
+		scroll(SearchSourceBuilder.searchSource(), action);
+	}
+
+	/**
+	 * Like {@link #forEach(AddOnAction)}, but only fetches these fields of each document's _source
+	 */
+	@Override
+	public void forEach(String[] fields, AddOnAction action) throws IOException {
+		scroll(SearchSourceBuilder.searchSource().fetchSource(fields, null), action);
+	}
+
+	private void scroll(SearchSourceBuilder source, AddOnAction action) throws IOException {
+		SearchResponse response = timed("forEach", () -> client.search(
+				Requests.searchRequest(AddOnInfoAndVersions.ES_INDEX)
+						.scroll(SCROLL_KEEP_ALIVE)
+						.source(source.size(SCROLL_SIZE).sort(SortBuilders.fieldSort("_doc"))),
+				RequestOptions.DEFAULT));
+		String scrollId = response.getScrollId();
+		try {
+			while (response.getHits().getHits().length > 0) {
+				for (AddOnInfoAndVersions addOn : this.<AddOnInfoAndVersions>readHits(response, infoAndVersionsReader)) {
+					action.accept(addOn);
+				}
+				String currentScrollId = scrollId;
+				response = timed("forEach", () -> client.scroll(
+						new SearchScrollRequest(currentScrollId).scroll(SCROLL_KEEP_ALIVE), RequestOptions.DEFAULT));
+				scrollId = response.getScrollId();
+			}
+		}
+		finally {
+			ClearScrollRequest clearScroll = new ClearScrollRequest();
+			clearScroll.addScrollId(scrollId);
+			try {
+				client.clearScroll(clearScroll, RequestOptions.DEFAULT);
+			}
+			catch (IOException | ElasticsearchException ex) {
+				// it will expire anyway
+				log.debug("Failed to clear scroll", ex);
+			}
+		}
+	}
+
+	@Override
+	public String getGeneration() {
+		return live + "-" + started + "-" + modifications.get();
+	}
+
+	private SearchSourceBuilder uidOrdered(QueryBuilder query, String after) {
+		SearchSourceBuilder source = new SearchSourceBuilder().query(query).sort(uidSort());
+		if (after != null) {
+			source.searchAfter(SearchCursor.decode(after, String.class));
+		}
+		return source;
+	}
+
+	/**
+	 * uid is unique, so this is the tie-breaker that makes sorts stable enough to page through with search_after
+	 */
+	private FieldSortBuilder uidSort() {
+		// unmappedType keeps this working on an empty index, before the first add-on has been indexed
+		return SortBuilders.fieldSort("uid.keyword").unmappedType("keyword");
+	}
+
+	private SearchRequest pageRequest(SearchSourceBuilder source, int size) {
+		return Requests.searchRequest(AddOnInfoAndVersions.ES_INDEX).source(source.size(Index.pageSize(size)));
+	}
+
+	/**
+	 * @param cursorSuffix anything else that the next page's cursor should carry, after the last hit's sort values
+	 */
+	private <T> ResultsPage<T> readPage(SearchResponse response, int size, ObjectReader reader, Object... cursorSuffix)
+			throws IOException {
+		SearchHit[] hits = response.getHits().getHits();
+		String next = null;
+		if (hits.length == Index.pageSize(size)) {
+			Object[] sortValues = hits[hits.length - 1].getSortValues();
+			Object[] cursor = Arrays.copyOf(sortValues, sortValues.length + cursorSuffix.length);
+			System.arraycopy(cursorSuffix, 0, cursor, sortValues.length, cursorSuffix.length);
+			next = SearchCursor.encode(cursor);
+		}
+		return new ResultsPage<>(readHits(response, reader), next);
+	}
+
+	/**
+	 * Deserializes each hit's _source straight from the bytes ES returned, rather than via a Map
+	 */
+	private <T> List<T> readHits(SearchResponse response, ObjectReader reader) throws IOException {
+		List<T> results = new ArrayList<>(response.getHits().getHits().length);
+		for (SearchHit hit : response.getHits().getHits()) {
+			if (hit.hasSource()) {
+				results.add(read(reader, hit.getSourceRef()));
+			}
+		}
+		return results;
+	}
+
+	private <T> T read(ObjectReader reader, BytesReference source) throws IOException {
+		try (InputStream inputStream = source.streamInput()) {
+			return reader.readValue(inputStream);
+		}
+	}
+
+	private <T> T timed(String operation, ElasticSearchCall<T> call) throws IOException {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String outcome = "error";
+		try {
+			T result = call.execute();
+			outcome = "success";
+			return result;
+		}
+		finally {
+			sample.stop(meterRegistry.timer("addonindex.elasticsearch.requests", "operation", operation, "outcome",
+					outcome));
+		}
+	}
+
+	private interface ElasticSearchCall<T> {
+
+		T execute() throws IOException;
+	}
+
 	private String loadResource(String name) throws IOException {
 		InputStream inputStream = getClass().getClassLoader().getResourceAsStream(name);
 		return StreamUtils.copyToString(inputStream, Charset.defaultCharset());
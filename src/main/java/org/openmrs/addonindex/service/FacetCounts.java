@@ -0,0 +1,72 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.ResultsPage;
+
+/**
+ * Adds up how many add-ons have each value of each facet, for {@link ResultsPage#getFacets()}. Whichever of the indexes
+ * does the counting, the counts come out in the same shape and order.
+ */
+class FacetCounts {
+
+	/**
+	 * The facets that we count, named like the request parameters that filter on them
+	 */
+	static final List<String> COUNTED = Arrays.asList(FacetIndex.TYPE, FacetIndex.TAG, FacetIndex.STATUS,
+			FacetIndex.LANGUAGE);
+
+	private final Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+
+	FacetCounts() {
+		COUNTED.forEach(facet -> counts.put(facet, new HashMap<>()));
+	}
+
+	void add(String facet, String value, long count) {
+		if (value != null && count > 0) {
+			counts.get(facet).merge(value, count, Long::sum);
+		}
+	}
+
+	void add(AddOnInfoAndVersions addOn) {
+		FacetIndex.facetValues(addOn).forEach((facet, values) -> {
+			if (counts.containsKey(facet)) {
+				values.forEach(value -> add(facet, value, 1));
+			}
+		});
+	}
+
+	/**
+	 * @return for each facet, its {@link Index#MAX_FACET_VALUES} most common values, most common first
+	 */
+	Map<String, Map<String, Long>> toMap() {
+		Map<String, Map<String, Long>> map = new LinkedHashMap<>();
+		counts.forEach((facet, values) -> {
+			Map<String, Long> top = new LinkedHashMap<>();
+			values.entrySet().stream()
+					.sorted(Map.Entry.<String, Long> comparingByValue(Comparator.reverseOrder())
+							.thenComparing(Map.Entry.comparingByKey()))
+					.limit(Index.MAX_FACET_VALUES)
+					.forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+			map.put(facet, top);
+		});
+		return map;
+	}
+
+}
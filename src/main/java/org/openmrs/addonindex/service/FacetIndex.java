@@ -0,0 +1,251 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.service;
+
+import javax.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openmrs.addonindex.domain.AddOnFilter;
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.AddOnInfoSummary;
+import org.openmrs.addonindex.domain.AddOnVersion;
+import org.openmrs.addonindex.domain.ResultsPage;
+import org.openmrs.addonindex.util.OpenmrsVersionCompareUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers filtered listings from memory instead of going to the {@link Index}. Each add-on gets an ordinal, and for each
+ * value of each facet (type, tag, status, supported language, and required OpenMRS version) we keep the set of ordinals
+ * that have it, so a combination of filters is an intersection of bit sets. Kept up to date by {@link IndexingService}
+ * as add-ons are indexed.
+ */
+@Service
+@Slf4j
+public class FacetIndex {
+
+	static final String TYPE = "type";
+
+	static final String TAG = "tag";
+
+	static final String STATUS = "status";
+
+	static final String LANGUAGE = "language";
+
+	static final String REQUIRE_OPENMRS_VERSION = "requireOpenmrsVersion";
+
+	static final int MAX_CACHED_CORE_VERSIONS = 100;
+
+	private static final Comparator<AddOnInfoSummary> LISTING_ORDER = Comparator
+			.comparing(FacetIndex::demoted)
+			.thenComparing(AddOnInfoSummary::getUid);
+
+	private final Index repository;
+
+	private final Map<String, Integer> ordinals = new HashMap<>();
+
+	// by ordinal
+	private final List<AddOnInfoSummary> summaries = new ArrayList<>();
+
+	// by ordinal, the sets it is in, so that we can take it out of them when it is indexed again
+	private final List<List<BitSet>> memberships = new ArrayList<>();
+
+	private final Map<String, Map<String, BitSet>> facets = new HashMap<>();
+
+	// core version compatibility is a range check against every distinct requirement, so remember the answers for the
+	// core versions asked about most recently (any caller can ask about any string, so not all of them)
+	private final Map<String, BitSet> compatibleWithCoreVersion = new LinkedHashMap<>(16, 0.75f, true) {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, BitSet> eldest) {
+			return size() > MAX_CACHED_CORE_VERSIONS;
+		}
+	};
+
+	@Autowired
+	public FacetIndex(Index repository) {
+		this.repository = repository;
+	}
+
+	@PostConstruct
+	public void load() {
+		try {
+			repository.forEach(this::put);
+			log.info("Loaded {} add-ons into the facet index", ordinals.size());
+		}
+		catch (Exception ex) {
+			log.warn("Failed to load the facet index, listings will be missing add-ons until they are fetched again", ex);
+		}
+	}
+
+	public synchronized void put(AddOnInfoAndVersions addOn) {
+		int ordinal = ordinals.computeIfAbsent(addOn.getUid(), uid -> {
+			summaries.add(null);
+			memberships.add(new ArrayList<>());
+			return summaries.size() - 1;
+		});
+		for (BitSet set : memberships.get(ordinal)) {
+			set.clear(ordinal);
+		}
+		memberships.get(ordinal).clear();
+		compatibleWithCoreVersion.clear();
+
+		summaries.set(ordinal, new AddOnInfoSummary(addOn));
+		facetValues(addOn).forEach((facet, values) -> values.forEach(value -> add(ordinal, facet, value)));
+	}
+
+	/**
+	 * @return the values that the add-on has for each facet
+	 */
+	static Map<String, Set<String>> facetValues(AddOnInfoAndVersions addOn) {
+		Map<String, Set<String>> values = new HashMap<>();
+		if (addOn.getType() != null) {
+			values.computeIfAbsent(TYPE, f -> new HashSet<>()).add(addOn.getType().name());
+		}
+		if (addOn.getStatus() != null) {
+			values.computeIfAbsent(STATUS, f -> new HashSet<>()).add(addOn.getStatus().name());
+		}
+		if (addOn.getTags() != null) {
+			addOn.getTags().forEach(tag -> values.computeIfAbsent(TAG, f -> new HashSet<>()).add(tag));
+		}
+		if (addOn.getVersions() != null) {
+			for (AddOnVersion version : addOn.getVersions()) {
+				if (version.getSupportedLanguages() != null) {
+					version.getSupportedLanguages().forEach(
+							language -> values.computeIfAbsent(LANGUAGE, f -> new HashSet<>()).add(language));
+				}
+				String requirement = version.getRequireOpenmrsVersion();
+				values.computeIfAbsent(REQUIRE_OPENMRS_VERSION, f -> new HashSet<>())
+						.add(requirement == null ? "" : requirement);
+			}
+		}
+		return values;
+	}
+
+	private void add(int ordinal, String facet, String value) {
+		if (value == null) {
+			return;
+		}
+		BitSet set = facets.computeIfAbsent(facet, f -> new HashMap<>()).computeIfAbsent(value, v -> new BitSet());
+		if (!set.get(ordinal)) {
+			set.set(ordinal);
+			memberships.get(ordinal).add(set);
+		}
+	}
+
+	/**
+	 * @return uids of every add-on that matches
+	 */
+	public synchronized Set<String> uids(AddOnFilter filter) {
+		BitSet matching = matching(filter);
+		Set<String> uids = new HashSet<>(matching.cardinality() * 2);
+		matching.stream().forEach(ordinal -> uids.add(summaries.get(ordinal).getUid()));
+		return uids;
+	}
+
+	/**
+	 * @param after {@link ResultsPage#getNext()} from the previous page, or null for the first page
+	 * @return ordered by uid, with deprecated and inactive add-ons after all the others, in the same order as
+	 * {@link Index#search} gives when there's no query
+	 */
+	public synchronized ResultsPage<AddOnInfoSummary> list(AddOnFilter filter, int size, String after) {
+		Object[] previous = after == null ? null : SearchCursor.decode(after, Boolean.class, String.class);
+		List<AddOnInfoSummary> results = new ArrayList<>();
+		matching(filter).stream()
+				.mapToObj(summaries::get)
+				.filter(summary -> previous == null || isAfter(summary, (Boolean) previous[0], (String) previous[1]))
+				.sorted(LISTING_ORDER)
+				.limit(Index.pageSize(size))
+				.forEach(results::add);
+
+		String next = null;
+		if (results.size() == Index.pageSize(size)) {
+			AddOnInfoSummary last = results.get(results.size() - 1);
+			next = SearchCursor.encode(demoted(last), last.getUid());
+		}
+		return new ResultsPage<>(results, next);
+	}
+
+	private static boolean demoted(AddOnInfoSummary summary) {
+		return Index.DEMOTED.contains(summary.getStatus());
+	}
+
+	private static boolean isAfter(AddOnInfoSummary summary, boolean previousDemoted, String previousUid) {
+		if (demoted(summary) != previousDemoted) {
+			return !previousDemoted;
+		}
+		return summary.getUid().compareTo(previousUid) > 0;
+	}
+
+	/**
+	 * @return for each facet, how many of the add-ons that match have each of its values, like
+	 * {@link ResultsPage#getFacets()}
+	 */
+	public synchronized Map<String, Map<String, Long>> count(AddOnFilter filter) {
+		BitSet matching = matching(filter);
+		FacetCounts counts = new FacetCounts();
+		for (String facet : FacetCounts.COUNTED) {
+			facets.getOrDefault(facet, Collections.emptyMap()).forEach((value, set) -> {
+				BitSet both = (BitSet) set.clone();
+				both.and(matching);
+				counts.add(facet, value, both.cardinality());
+			});
+		}
+		return counts.toMap();
+	}
+
+	BitSet matching(AddOnFilter filter) {
+		BitSet matching = new BitSet();
+		matching.set(0, summaries.size());
+		if (filter.getType() != null) {
+			matching.and(get(TYPE, filter.getType().name()));
+		}
+		if (filter.getTag() != null) {
+			matching.and(get(TAG, filter.getTag()));
+		}
+		if (filter.getStatus() != null) {
+			matching.and(get(STATUS, filter.getStatus().name()));
+		}
+		if (filter.getLanguage() != null) {
+			matching.and(get(LANGUAGE, filter.getLanguage()));
+		}
+		if (filter.getCoreVersion() != null) {
+			matching.and(compatibleWithCoreVersion.computeIfAbsent(filter.getCoreVersion(), this::compatibleWith));
+		}
+		return matching;
+	}
+
+	private BitSet get(String facet, String value) {
+		return facets.getOrDefault(facet, Map.of()).getOrDefault(value, new BitSet());
+	}
+
+	private BitSet compatibleWith(String coreVersion) {
+		BitSet compatible = new BitSet();
+		facets.getOrDefault(REQUIRE_OPENMRS_VERSION, Map.of()).forEach((requirement, set) -> {
+			if (OpenmrsVersionCompareUtil.matchRequiredVersions(coreVersion, requirement)) {
+				compatible.or(set);
+			}
+		});
+		return compatible;
+	}
+
+}
@@ -0,0 +1,459 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.AddOnInfoSummary;
+import org.openmrs.addonindex.domain.AddOnInfoSummaryAndStats;
+import org.openmrs.addonindex.domain.AddOnType;
+import org.openmrs.addonindex.domain.ResultsPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Keeps the whole index in memory, for installations (and tests) that don't want to run Elasticsearch. The catalog is a
+ * few thousand documents, so lookups are map reads, and search scores every document the way
+ * {@link ElasticSearchIndex#search(AddOnType, String, String)} would. If local_store.directory is set, the index is
+ * saved there periodically and restored at startup.
+ * Like Elasticsearch, it hands out copies of what it stores, so callers are free to modify them.
+ */
+@Repository
+@ConditionalOnProperty(name = "index.backend", havingValue = "memory")
+@Slf4j
+public class InMemoryIndex implements Index {
+
+	static final String SNAPSHOT = "index.json";
+
+	private static final int TOP_DOWNLOADS_SIZE = 20;
+
+	// roughly what Elasticsearch's standard analyzer does
+	private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	// max_gram of the name_prefix analyzer in addOnInfoAndVersions-settings.json
+	private static final int MAX_PREFIX_LENGTH = 20;
+
+	private final ObjectMapper objectMapper;
+
+	private final LocalStore localStore;
+
+	private final Map<String, Document> documents = new ConcurrentHashMap<>();
+
+	// how many documents each term appears in, for scoring
+	private final Map<String, Integer> nameTerms = new ConcurrentHashMap<>();
+
+	private final Map<String, Integer> descriptionTerms = new ConcurrentHashMap<>();
+
+	private final AtomicLong modifications = new AtomicLong();
+
+	private final String started = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+	private long savedModifications = -1;
+
+	// cleared by put, so only ever set under the same lock
+	private volatile List<AddOnInfoSummary> topDownloaded;
+
+	@Autowired
+	public InMemoryIndex(ObjectMapper objectMapper, LocalStore localStore) {
+		this.objectMapper = objectMapper;
+		this.localStore = localStore;
+	}
+
+	@PostConstruct
+	public void restore() {
+		localStore.read(SNAPSHOT, new TypeReference<List<AddOnInfoAndVersions>>() {}).ifPresent(snapshot -> {
+			log.info("Restoring {} documents into the in-memory index", snapshot.size());
+			snapshot.forEach(this::put);
+			savedModifications = modifications.get();
+		});
+	}
+
+	@Scheduled(
+			initialDelayString = "${scheduler.save_index_snapshot.period}",
+			fixedDelayString = "${scheduler.save_index_snapshot.period}")
+	@PreDestroy
+	public synchronized void save() {
+		if (!localStore.isEnabled()) {
+			return;
+		}
+		long saving = modifications.get();
+		if (saving == savedModifications) {
+			return;
+		}
+		List<AddOnInfoAndVersions> snapshot = documents.values().stream()
+				.map(document -> document.info)
+				.sorted(Comparator.comparing(AddOnInfoAndVersions::getUid))
+				.collect(Collectors.toList());
+		try {
+			localStore.write(SNAPSHOT, snapshot);
+			savedModifications = saving;
+		}
+		catch (Exception ex) {
+			log.warn("Failed to save the in-memory index", ex);
+		}
+	}
+
+	@Override
+	public void index(AddOnInfoAndVersions infoAndVersions) throws IOException {
+		// store a copy, like Elasticsearch would, so that later changes to infoAndVersions don't leak in
+		put(copy(infoAndVersions));
+	}
+
+	@Override
+	public void updateFields(String uid, Map<String, Object> fields) throws IOException {
+		Document document = documents.get(uid);
+		if (document == null) {
+			throw new IllegalArgumentException("No add-on indexed with uid " + uid);
+		}
+		// searches may be holding on to the stored object, so update a copy of it
+		put(objectMapper.updateValue(copy(document.info), fields));
+	}
+
+	private AddOnInfoAndVersions copy(AddOnInfoAndVersions info) {
+		return copy(info, AddOnInfoAndVersions.class);
+	}
+
+	private <T> T copy(T value, Class<T> type) {
+		try {
+			return objectMapper.readValue(objectMapper.writeValueAsBytes(value), type);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private synchronized void put(AddOnInfoAndVersions info) {
+		Document added = new Document(info);
+		Document previous = documents.put(info.getUid(), added);
+		if (previous != null) {
+			previous.nameTerms.forEach(term -> nameTerms.computeIfPresent(term, InMemoryIndex::decrement));
+			previous.descriptionTerms.forEach(term -> descriptionTerms.computeIfPresent(term, InMemoryIndex::decrement));
+		}
+		added.nameTerms.forEach(term -> nameTerms.merge(term, 1, Integer::sum));
+		added.descriptionTerms.forEach(term -> descriptionTerms.merge(term, 1, Integer::sum));
+		topDownloaded = null;
+		modifications.incrementAndGet();
+	}
+
+	private static Integer decrement(String term, Integer count) {
+		return count > 1 ? count - 1 : null;
+	}
+
+	/**
+	 * Same clauses and boosts as ElasticSearchIndex: exact uid (1700), exact tag (1500), the whole name (10), each word
+	 * of the query starts a word of the name (8), words of the query in the name (4) or description (2), and, only if
+	 * those match fewer than {@link Index#FUZZY_BELOW} add-ons, a misspelled word of the name (1). Matches in the name
+	 * and description are weighted by how rare the word is, and deprecated or inactive add-ons are pushed to the end.
+	 */
+	@Override
+	public ResultsPage<AddOnInfoSummary> search(AddOnType type, String query, String tag, Collection<String> uids,
+	                                            boolean facets, int size, String after) {
+		Comparator<ScoredDocument> order = Comparator.comparingDouble((ScoredDocument scored) -> -scored.score)
+				.thenComparing(scored -> scored.uid);
+		ScoredDocument previous = null;
+		boolean fuzzy = false;
+		if (after != null) {
+			Object[] sortValues = SearchCursor.decode(after, Number.class, String.class, Boolean.class);
+			previous = new ScoredDocument(null, ((Number) sortValues[0]).doubleValue(), (String) sortValues[1]);
+			fuzzy = (Boolean) sortValues[2];
+		}
+		else if (query != null) {
+			fuzzy = scored(type, tag, uids, new Query(query, false)).count() < Index.FUZZY_BELOW;
+		}
+		Query q = query == null ? null : new Query(query, fuzzy);
+		ScoredDocument onPreviousPage = previous;
+		List<ScoredDocument> page = scored(type, tag, uids, q)
+				.filter(scored -> onPreviousPage == null || order.compare(scored, onPreviousPage) > 0)
+				.sorted(order)
+				.limit(Index.pageSize(size))
+				.collect(Collectors.toList());
+
+		String next = null;
+		if (page.size() == Index.pageSize(size)) {
+			ScoredDocument end = page.get(page.size() - 1);
+			next = SearchCursor.encode(end.score, end.uid, fuzzy);
+		}
+		ResultsPage<AddOnInfoSummary> results = new ResultsPage<>(
+				page.stream().map(scored -> copy(scored.document.summary, AddOnInfoSummary.class))
+						.collect(Collectors.toList()), next);
+		if (facets) {
+			FacetCounts counts = new FacetCounts();
+			scored(type, tag, uids, q).forEach(scored -> counts.add(scored.document.info));
+			results.setFacets(counts.toMap());
+		}
+		return results;
+	}
+
+	private Stream<ScoredDocument> scored(AddOnType type, String tag, Collection<String> uids, Query query) {
+		return documents.values().stream()
+				.filter(document -> type == null || document.info.getType() == type)
+				.filter(document -> tag == null || document.tags.contains(tag))
+				.filter(document -> uids == null || uids.contains(document.info.getUid()))
+				.map(document -> new ScoredDocument(document, score(document, query), document.info.getUid()))
+				.filter(scored -> query == null || scored.score > 0);
+	}
+
+	private double score(Document document, Query query) {
+		// without a query everything matches equally, like match_all does, so that only the demotion orders them
+		double score = query == null ? 1 : matchScore(document, query);
+		if (DEMOTED.contains(document.info.getStatus())) {
+			score *= 0.001;
+		}
+		return score;
+	}
+
+	private double matchScore(Document document, Query query) {
+		double score = 0;
+		if (document.info.getUid().equals(query.text)) {
+			score += 1700;
+		}
+		if (document.tags.contains(query.text)) {
+			score += 1500;
+		}
+		if (query.text.equalsIgnoreCase(document.info.getName())) {
+			score += 10;
+		}
+		if (!query.startOf.isEmpty()
+				&& query.startOf.stream().noneMatch(started -> Collections.disjoint(document.nameTerms, started))) {
+			score += 8;
+		}
+		for (String term : query.terms) {
+			if (document.nameTerms.contains(term)) {
+				score += 4 * idf(nameTerms, term);
+			}
+			if (document.descriptionTerms.contains(term)) {
+				score += 2 * idf(descriptionTerms, term);
+			}
+		}
+		if (!Collections.disjoint(document.nameTerms, query.similarTo)) {
+			score += 1;
+		}
+		return score;
+	}
+
+	private double idf(Map<String, Integer> termCounts, String term) {
+		int withTerm = termCounts.getOrDefault(term, 0);
+		return Math.log(1 + (documents.size() - withTerm + 0.5) / (withTerm + 0.5));
+	}
+
+	@Override
+	public ResultsPage<AddOnInfoAndVersions> getAllByType(AddOnType type, int size, String after) {
+		return uidOrdered(document -> document.info.getType() == type, size, after);
+	}
+
+	@Override
+	public ResultsPage<AddOnInfoAndVersions> getByTag(String tag, int size, String after) {
+		return uidOrdered(document -> document.tags.contains(tag), size, after);
+	}
+
+	private ResultsPage<AddOnInfoAndVersions> uidOrdered(Predicate<Document> filter, int size, String after) {
+		String afterUid = after == null ? null : (String) SearchCursor.decode(after, String.class)[0];
+		List<AddOnInfoAndVersions> page = documents.values().stream()
+				.filter(filter)
+				.map(document -> document.info)
+				.filter(info -> afterUid == null || info.getUid().compareTo(afterUid) > 0)
+				.sorted(Comparator.comparing(AddOnInfoAndVersions::getUid))
+				.limit(Index.pageSize(size))
+				.map(this::copy)
+				.collect(Collectors.toList());
+
+		String next = null;
+		if (page.size() == Index.pageSize(size)) {
+			next = SearchCursor.encode(page.get(page.size() - 1).getUid());
+		}
+		return new ResultsPage<>(page, next);
+	}
+
+	@Override
+	public AddOnInfoAndVersions getByModulePackage(String modulePackage) {
+		return documents.values().stream()
+				.map(document -> document.info)
+				.filter(info -> Objects.equals(modulePackage, info.getModulePackage()))
+				.findFirst()
+				.map(this::copy)
+				.orElse(null);
+	}
+
+	@Override
+	public AddOnInfoAndVersions getByUid(String uid) {
+		Document document = documents.get(uid);
+		return document == null ? null : copy(document.info);
+	}
+
+	@Override
+	public List<AddOnInfoSummaryAndStats> getTopDownloaded() {
+		List<AddOnInfoSummary> result = topDownloaded;
+		if (result == null) {
+			// otherwise a put could clear it after we read the documents but before we store what we made of them
+			synchronized (this) {
+				result = topDownloaded;
+				if (result == null) {
+					result = documents.values().stream()
+							.map(document -> document.summary)
+							.sorted(Comparator.comparing(AddOnInfoSummary::getDownloadCountInLast30Days,
+									Comparator.nullsLast(Comparator.reverseOrder())))
+							.limit(TOP_DOWNLOADS_SIZE)
+							.collect(Collectors.toList());
+					topDownloaded = result;
+				}
+			}
+		}
+		return result.stream()
+				.map(summary -> new AddOnInfoSummaryAndStats(copy(summary, AddOnInfoSummary.class)))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public void forEach(AddOnAction action) throws IOException {
+		for (Document document : documents.values()) {
+			action.accept(copy(document.info));
+		}
+	}
+
+	@Override
+	public String getGeneration() {
+		return started + "-" + modifications.get();
+	}
+
+	static Set<String> terms(String text) {
+		if (text == null) {
+			return Collections.emptySet();
+		}
+		return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+				.filter(term -> !term.isEmpty())
+				.collect(Collectors.toSet());
+	}
+
+	/**
+	 * @return true if a can be turned into b by at most maxEdits insertions, deletions, substitutions or swaps of
+	 * adjacent characters
+	 */
+	static boolean withinEdits(String a, String b, int maxEdits) {
+		if (Math.abs(a.length() - b.length()) > maxEdits) {
+			return false;
+		}
+		int[][] d = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++) {
+			d[i][0] = i;
+		}
+		for (int j = 0; j <= b.length(); j++) {
+			d[0][j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+				}
+			}
+		}
+		return d[a.length()][b.length()] <= maxEdits;
+	}
+
+	private static class Document {
+
+		private final AddOnInfoAndVersions info;
+
+		private final AddOnInfoSummary summary;
+
+		private final Set<String> tags;
+
+		private final Set<String> nameTerms;
+
+		private final Set<String> descriptionTerms;
+
+		Document(AddOnInfoAndVersions info) {
+			this.info = info;
+			this.summary = new AddOnInfoSummary(info);
+			this.tags = info.getTags() == null ? Collections.emptySet() : new HashSet<>(info.getTags());
+			this.nameTerms = terms(info.getName());
+			this.descriptionTerms = terms(info.getDescription());
+		}
+	}
+
+	private static class ScoredDocument {
+
+		private final Document document;
+
+		private final double score;
+
+		private final String uid;
+
+		ScoredDocument(Document document, double score, String uid) {
+			this.document = document;
+			this.score = score;
+			this.uid = uid;
+		}
+	}
+
+	private class Query {
+
+		private final String text;
+
+		private final Set<String> terms;
+
+		// for each word of the query, the name terms that it is the start of
+		private final List<Set<String>> startOf = new ArrayList<>();
+
+		// name terms that the query is a misspelling of
+		private final Set<String> similarTo = new HashSet<>();
+
+		Query(String text, boolean fuzzy) {
+			this.text = text;
+			this.terms = terms(text);
+			for (String word : terms) {
+				// Elasticsearch only indexes the starts of words up to this long
+				startOf.add(word.length() > MAX_PREFIX_LENGTH ? Collections.emptySet() : nameTerms.keySet().stream()
+						.filter(term -> term.startsWith(word))
+						.collect(Collectors.toSet()));
+			}
+			if (fuzzy && !text.isEmpty()) {
+				// like Elasticsearch's fuzzy query, this compares the query as typed, without analyzing it, and only
+				// with terms that start with the same letter
+				int maxEdits = text.length() < 3 ? 0 : text.length() < 6 ? 1 : 2;
+				for (String term : nameTerms.keySet()) {
+					if (term.charAt(0) == text.charAt(0) && withinEdits(text, term, maxEdits)) {
+						similarTo.add(term);
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -10,30 +10,184 @@
 
 package org.openmrs.addonindex.service;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnInfoSummary;
 import org.openmrs.addonindex.domain.AddOnInfoSummaryAndStats;
+import org.openmrs.addonindex.domain.AddOnStatus;
 import org.openmrs.addonindex.domain.AddOnType;
+import org.openmrs.addonindex.domain.ResultsPage;
 
 /**
  * Interface for accessing the datastore where we have indexed information about add-ons and versions.
  */
 public interface Index {
+
+	/**
+	 * The most results that a page can hold
+	 */
+	int MAX_PAGE_SIZE = 200;
+
+	/**
+	 * Searches only fall back to fuzzy matching of the name when exact and prefix matching find fewer add-ons than this
+	 */
+	int FUZZY_BELOW = 5;
+
+	/**
+	 * The most values of each facet that a search counts
+	 */
+	int MAX_FACET_VALUES = 100;
+
+	/**
+	 * Add-ons with these statuses come after all the others in searches and listings
+	 */
+	Set<AddOnStatus> DEMOTED = Collections.unmodifiableSet(EnumSet.of(AddOnStatus.DEPRECATED, AddOnStatus.INACTIVE));
 	
 	void index(AddOnInfoAndVersions infoAndVersions) throws Exception;
-	
-	Collection<AddOnInfoSummary> search(AddOnType type, String query, String tag) throws Exception;
-	
-	Collection<AddOnInfoAndVersions> getAllByType(AddOnType type) throws Exception;
-	
-	Collection<AddOnInfoAndVersions> getByTag(String tag) throws Exception;
+
+	/**
+	 * Changes just these top-level fields of an add-on that is already indexed
+	 *
+	 * @param fields e.g. {@link AddOnInfoAndVersions#VOLATILE_FIELDS}, with their new values
+	 */
+	void updateFields(String uid, Map<String, Object> fields) throws Exception;
+
+	/**
+	 * @param uids   if not null, only these add-ons can match (e.g. the ones that {@link FacetIndex} says match filters
+	 *               that the index doesn't know about)
+	 * @param facets whether to count, over all the matches, how many have each value of each facet, see
+	 *               {@link ResultsPage#getFacets()}
+	 * @param size   how many results to return, at most {@link #MAX_PAGE_SIZE}
+	 * @param after  {@link ResultsPage#getNext()} from the previous page, or null for the first page
+	 * @return best matches first, then by uid
+	 */
+	ResultsPage<AddOnInfoSummary> search(AddOnType type, String query, String tag, Collection<String> uids,
+	                                     boolean facets, int size, String after) throws Exception;
+
+	default ResultsPage<AddOnInfoSummary> search(AddOnType type, String query, String tag, Collection<String> uids,
+	                                             int size, String after) throws Exception {
+		return search(type, query, tag, uids, false, size, after);
+	}
+
+	default ResultsPage<AddOnInfoSummary> search(AddOnType type, String query, String tag, int size, String after)
+			throws Exception {
+		return search(type, query, tag, null, size, after);
+	}
+
+	/**
+	 * @return ordered by uid
+	 */
+	ResultsPage<AddOnInfoAndVersions> getAllByType(AddOnType type, int size, String after) throws Exception;
+
+	/**
+	 * @return ordered by uid
+	 */
+	ResultsPage<AddOnInfoAndVersions> getByTag(String tag, int size, String after) throws Exception;
 
 	AddOnInfoAndVersions getByModulePackage(String modulePackage) throws Exception;
 	
 	AddOnInfoAndVersions getByUid(String uid) throws Exception;
+
+	/**
+	 * @return the ones that are indexed, by uid, in the order they were asked for
+	 */
+	default Map<String, AddOnInfoAndVersions> getByUids(Collection<String> uids) throws Exception {
+		Map<String, AddOnInfoAndVersions> found = new LinkedHashMap<>();
+		for (String uid : uids) {
+			AddOnInfoAndVersions addOn = getByUid(uid);
+			if (addOn != null) {
+				found.put(uid, addOn);
+			}
+		}
+		return found;
+	}
 	
 	List<AddOnInfoSummaryAndStats> getTopDownloaded() throws Exception;
+
+	/**
+	 * Hands every indexed add-on to the action, one at a time, in no particular order, without loading them all
+	 */
+	void forEach(AddOnAction action) throws Exception;
+
+	/**
+	 * Like {@link #forEach(AddOnAction)}, for callers that only need some fields. Indexes that can fetch less may leave
+	 * the others out of what they hand to the action.
+	 *
+	 * @param fields top-level fields of {@link AddOnInfoAndVersions} that the action reads
+	 */
+	default void forEach(String[] fields, AddOnAction action) throws Exception {
+		forEach(action);
+	}
+
+	/**
+	 * @return changes whenever anything is indexed (and may change at other times, e.g. on restart), so that clients
+	 * can tell whether they have seen everything that is in the index now
+	 */
+	String getGeneration() throws Exception;
+
+	/**
+	 * Called before a full indexing pass. An index that supports it starts building a new copy of itself, which gets
+	 * everything indexed from now on as well, while reads keep going to the current one.
+	 */
+	default void startRebuild() throws Exception {
+	}
+
+	/**
+	 * Called after a full indexing pass, even if it failed. Fills in the new copy with anything the pass didn't index,
+	 * and switches reads over to it.
+	 */
+	default void finishRebuild() throws Exception {
+	}
+
+	/**
+	 * @return every match, however many pages that takes
+	 */
+	default Collection<AddOnInfoSummary> search(AddOnType type, String query, String tag) throws Exception {
+		return allPages(after -> search(type, query, tag, MAX_PAGE_SIZE, after));
+	}
+
+	default Collection<AddOnInfoAndVersions> getAllByType(AddOnType type) throws Exception {
+		return allPages(after -> getAllByType(type, MAX_PAGE_SIZE, after));
+	}
+
+	default Collection<AddOnInfoAndVersions> getByTag(String tag) throws Exception {
+		return allPages(after -> getByTag(tag, MAX_PAGE_SIZE, after));
+	}
+
+	/**
+	 * @return size, brought within 1 to {@link #MAX_PAGE_SIZE}
+	 */
+	static int pageSize(int size) {
+		return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+	}
+
+	private <T> List<T> allPages(PageFetcher<T> fetcher) throws Exception {
+		List<T> all = new ArrayList<>();
+		String after = null;
+		do {
+			ResultsPage<T> page = fetcher.fetch(after);
+			all.addAll(page.getResults());
+			after = page.getNext();
+		} while (after != null);
+		return all;
+	}
+
+	interface AddOnAction {
+
+		void accept(AddOnInfoAndVersions addOn) throws IOException;
+	}
+
+	interface PageFetcher<T> {
+
+		ResultsPage<T> fetch(String after) throws Exception;
+	}
 }
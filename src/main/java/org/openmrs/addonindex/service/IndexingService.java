@@ -11,10 +11,15 @@
 package org.openmrs.addonindex.service;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
 import org.openmrs.addonindex.backend.BackendHandler;
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
@@ -24,6 +29,7 @@ import org.openmrs.addonindex.domain.AddOnReference;
 import org.openmrs.addonindex.domain.AddOnToIndex;
 import org.openmrs.addonindex.domain.AddOnVersion;
 import org.openmrs.addonindex.domain.AllAddOnsToIndex;
+import org.openmrs.addonindex.domain.IndexingQueue;
 import org.openmrs.addonindex.domain.IndexingStatus;
 import org.openmrs.addonindex.domain.MaterializedAddOnList;
 import org.openmrs.addonindex.domain.MaterializedReference;
@@ -36,15 +42,23 @@ public class IndexingService {
 
 	private final Index repository;
 
+	private final ObjectMapper objectMapper;
+
+	private final FacetIndex facetIndex;
+
 	private final IndexingStatus indexingStatus = new IndexingStatus();
 
-	private AllAddOnsToIndex allToIndex = new AllAddOnsToIndex();
+	private final IndexingQueue indexingQueue = new IndexingQueue();
+
+	private volatile AllAddOnsToIndex allToIndex = new AllAddOnsToIndex();
 
 	private Map<Class<? extends BackendHandler>, BackendHandler> handlers;
 	
 	@Autowired
-	public IndexingService(Index repository) {
+	public IndexingService(Index repository, ObjectMapper objectMapper, FacetIndex facetIndex) {
 		this.repository = repository;
+		this.objectMapper = objectMapper;
+		this.facetIndex = facetIndex;
 	}
 	
 	@Autowired
@@ -59,7 +73,19 @@ public class IndexingService {
 		return allToIndex;
 	}
 	
+	/**
+	 * Add-ons that are new or whose definition changed since the previous list are queued to be re-indexed soon
+	 *
+	 * @param allToIndex
+	 */
 	public void setAllToIndex(AllAddOnsToIndex allToIndex) {
+		// the first list we load gets indexed by the full pass that follows startup
+		if (this.allToIndex.size() > 0) {
+			for (String uid : allToIndex.getUidsChangedFrom(this.allToIndex)) {
+				log.info("{} was added or changed, queueing it to be re-indexed", uid);
+				indexingQueue.add(uid, IndexingQueue.Reason.DEFINITION_CHANGED);
+			}
+		}
 		this.allToIndex = allToIndex;
 	}
 	
@@ -69,15 +95,62 @@ public class IndexingService {
 	
 	public void index(AddOnInfoAndVersions infoAndVersions) throws Exception {
 		repository.index(infoAndVersions);
+		facetIndex.put(infoAndVersions);
 	}
 	
+	/**
+	 * Like {@link #index(AddOnInfoAndVersions)}, but if the only differences from what is in the index now are in
+	 * {@link AddOnInfoAndVersions#VOLATILE_FIELDS}, only updates those, and if nothing changed, doesn't write to the
+	 * index at all. The {@link FacetIndex} is always given it.
+	 *
+	 * @param infoAndVersions what we just fetched
+	 * @param existing        what {@link #getByUid(String)} returned before fetching it, or null if it wasn't indexed
+	 */
+	public void index(AddOnInfoAndVersions infoAndVersions, AddOnInfoAndVersions existing) throws Exception {
+		if (existing == null) {
+			index(infoAndVersions);
+			return;
+		}
+		ObjectNode updated = objectMapper.valueToTree(infoAndVersions);
+		ObjectNode previous = objectMapper.valueToTree(existing);
+		Map<String, Object> changed = new LinkedHashMap<>();
+		for (String field : AddOnInfoAndVersions.VOLATILE_FIELDS) {
+			JsonNode value = updated.remove(field);
+			if (!Objects.equals(value, previous.remove(field))) {
+				changed.put(field, objectMapper.treeToValue(value, Object.class));
+			}
+		}
+		if (!updated.equals(previous)) {
+			index(infoAndVersions);
+			return;
+		}
+		if (!changed.isEmpty()) {
+			log.debug("Only {} changed for {}", changed.keySet(), infoAndVersions.getUid());
+			repository.updateFields(infoAndVersions.getUid(), changed);
+		}
+		// even if nothing was written, since the facet index is missing add-ons if it failed to load at startup
+		facetIndex.put(infoAndVersions);
+	}
+
 	public AddOnInfoAndVersions getByUid(String uid) throws Exception {
 		return repository.getByUid(uid);
 	}
+
+	public void startRebuild() throws Exception {
+		repository.startRebuild();
+	}
+
+	public void finishRebuild() throws Exception {
+		repository.finishRebuild();
+	}
 	
 	public IndexingStatus getIndexingStatus() {
 		return indexingStatus;
 	}
+
+	public IndexingQueue getIndexingQueue() {
+		return indexingQueue;
+	}
 	
 	/**
 	 * Queries the index to fetch the add-ons referenced in list
@@ -0,0 +1,103 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Keeps small JSON documents on local disk, so that state survives a restart. Writes go to a temporary file that is
+ * then moved into place, so a crash mid-write leaves the previous version intact.
+ * If local_store.directory is not set, nothing is read or written.
+ */
+@Component
+@Slf4j
+public class LocalStore {
+
+	private final ObjectMapper objectMapper;
+
+	private final Path directory;
+
+	@Autowired
+	public LocalStore(ObjectMapper objectMapper, @Value("${local_store.directory:}") String directory) {
+		this.objectMapper = objectMapper;
+		this.directory = StringUtils.hasText(directory) ? Paths.get(directory) : null;
+	}
+
+	public boolean isEnabled() {
+		return directory != null;
+	}
+
+	/**
+	 * @param name
+	 * @param type
+	 * @return the document, or empty if the store is disabled, the document doesn't exist, or it can't be read
+	 */
+	public <T> Optional<T> read(String name, TypeReference<T> type) {
+		if (!isEnabled()) {
+			return Optional.empty();
+		}
+		Path file = directory.resolve(name);
+		if (!Files.exists(file)) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.ofNullable(objectMapper.readValue(file.toFile(), type));
+		}
+		catch (IOException ex) {
+			log.warn("Ignoring {} because it could not be read", file, ex);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * @param name
+	 * @param document
+	 * @throws IOException
+	 */
+	public void write(String name, Object document) throws IOException {
+		if (!isEnabled()) {
+			return;
+		}
+		Files.createDirectories(directory);
+		Path file = directory.resolve(name);
+		Path temp = Files.createTempFile(directory, name, ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				objectMapper.writeValue(out, document);
+			}
+			try {
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.service;
+
+import java.io.IOException;
+import java.util.Base64;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Encodes the sort values of the last result on a page (e.g. its score and uid) as an opaque, URL-safe string that a
+ * client passes back to get the next page, so that an {@link Index} can continue from there rather than skipping over
+ * everything before it.
+ */
+public final class SearchCursor {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private SearchCursor() {
+	}
+
+	public static String encode(Object... sortValues) {
+		try {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(sortValues));
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Cannot encode " + sortValues.length + " sort values", ex);
+		}
+	}
+
+	/**
+	 * @param types what each of the sort values must be
+	 * @throws IllegalArgumentException if the cursor wasn't one we made for this kind of query
+	 */
+	public static Object[] decode(String cursor, Class<?>... types) {
+		Object[] sortValues;
+		try {
+			sortValues = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), Object[].class);
+		}
+		catch (IOException | IllegalArgumentException ex) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor);
+		}
+		if (sortValues.length != types.length) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor);
+		}
+		for (int i = 0; i < types.length; i++) {
+			if (!types[i].isInstance(sortValues[i])) {
+				throw new IllegalArgumentException("Invalid cursor: " + cursor);
+			}
+		}
+		return sortValues;
+	}
+
+}
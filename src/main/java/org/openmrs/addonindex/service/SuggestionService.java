@@ -0,0 +1,68 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.service;
+
+import java.util.List;
+import java.util.Objects;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openmrs.addonindex.domain.AddOnSuggestion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serves typeahead completions from memory, without going to the index, rebuilding them whenever the index changes
+ */
+@Service
+@Slf4j
+public class SuggestionService {
+
+	public static final int MAX_SUGGESTIONS = 10;
+
+	private final Index repository;
+
+	private volatile SuggestionTrie suggestions = SuggestionTrie.EMPTY;
+
+	private String generation;
+
+	@Autowired
+	public SuggestionService(Index repository) {
+		this.repository = repository;
+	}
+
+	@Scheduled(
+			initialDelayString = "${scheduler.rebuild_suggestions.initial_delay}",
+			fixedDelayString = "${scheduler.rebuild_suggestions.period}")
+	public synchronized void rebuildIfIndexChanged() throws Exception {
+		// read this first, so that if anything is indexed while we rebuild, we rebuild again next time
+		String current = repository.getGeneration();
+		if (Objects.equals(current, generation)) {
+			return;
+		}
+		long started = System.nanoTime();
+		SuggestionTrie.Builder builder = new SuggestionTrie.Builder(MAX_SUGGESTIONS);
+		repository.forEach(SuggestionTrie.SOURCE_FIELDS, builder::add);
+		suggestions = builder.build();
+		generation = current;
+		log.debug("Rebuilt suggestions in {} ms", (System.nanoTime() - started) / 1000000);
+	}
+
+	/**
+	 * @param prefix what has been typed so far, in any case
+	 * @param size   how many to return, at most {@link #MAX_SUGGESTIONS}
+	 * @return one per add-on, most downloaded first
+	 */
+	public List<AddOnSuggestion> suggest(String prefix, int size) {
+		return suggestions.lookup(prefix, size);
+	}
+
+}
@@ -0,0 +1,192 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.AddOnSuggestion;
+
+/**
+ * Prefix completions over add-on names (and each word in them), uids, module ids and tags. Built in one go from
+ * everything that is indexed, and never changed after that, so it can be read without locking. Each node keeps the best
+ * few suggestions for everything below it, so a lookup is a walk down the prefix, however big the catalog is.
+ */
+final class SuggestionTrie {
+
+	static final SuggestionTrie EMPTY = new Builder(1).build();
+
+	/**
+	 * The fields of an indexed add-on that {@link Builder#add} reads, so that rebuilding only needs to fetch these
+	 */
+	static final String[] SOURCE_FIELDS = { "uid", "name", "moduleId", "tags", "type", "downloadCountInLast30Days" };
+
+	// most downloaded first, then the shortest completion
+	private static final Comparator<AddOnSuggestion> RANKING = Comparator
+			.comparing(AddOnSuggestion::getDownloadCountInLast30Days, Comparator.nullsLast(Comparator.reverseOrder()))
+			.thenComparingInt(suggestion -> suggestion.getText().length())
+			.thenComparing(AddOnSuggestion::getText)
+			.thenComparing(AddOnSuggestion::getUid);
+
+	private final Node root;
+
+	private SuggestionTrie(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * @return best first, one per add-on, at most as many as the trie was built to keep
+	 */
+	List<AddOnSuggestion> lookup(String prefix, int size) {
+		Node node = root;
+		String key = prefix.toLowerCase(Locale.ROOT);
+		for (int i = 0; i < key.length() && node != null; i++) {
+			node = node.child(key.charAt(i));
+		}
+		if (node == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(Arrays.asList(node.top).subList(0, Math.min(Math.max(size, 0),
+				node.top.length)));
+	}
+
+	private static final class Node {
+
+		// sorted, so that we can binary search them
+		private final char[] labels;
+
+		private final Node[] children;
+
+		private final AddOnSuggestion[] top;
+
+		Node(char[] labels, Node[] children, AddOnSuggestion[] top) {
+			this.labels = labels;
+			this.children = children;
+			this.top = top;
+		}
+
+		Node child(char label) {
+			int i = Arrays.binarySearch(labels, label);
+			return i < 0 ? null : children[i];
+		}
+	}
+
+	static final class Builder {
+
+		private final int keep;
+
+		private final BuildingNode root = new BuildingNode();
+
+		/**
+		 * @param keep how many suggestions to keep for each prefix
+		 */
+		Builder(int keep) {
+			this.keep = keep;
+		}
+
+		Builder add(AddOnInfoAndVersions addOn) {
+			String name = addOn.getName();
+			if (name != null) {
+				AddOnSuggestion byName = suggestion(name, addOn);
+				for (int i = 0; i < name.length(); i++) {
+					if (startsWord(name, i)) {
+						add(name.substring(i), byName);
+					}
+				}
+			}
+			add(addOn.getUid(), suggestion(addOn.getUid(), addOn));
+			add(addOn.getModuleId(), suggestion(addOn.getModuleId(), addOn));
+			if (addOn.getTags() != null) {
+				for (String tag : addOn.getTags()) {
+					add(tag, suggestion(tag, addOn));
+				}
+			}
+			return this;
+		}
+
+		private boolean startsWord(String text, int i) {
+			return Character.isLetterOrDigit(text.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+		}
+
+		private AddOnSuggestion suggestion(String text, AddOnInfoAndVersions addOn) {
+			return new AddOnSuggestion(text, addOn.getUid(), addOn.getName(), addOn.getType(),
+					addOn.getDownloadCountInLast30Days());
+		}
+
+		private void add(String key, AddOnSuggestion suggestion) {
+			if (key == null || key.isEmpty()) {
+				return;
+			}
+			BuildingNode node = root;
+			node.offer(suggestion, keep);
+			for (char label : key.toLowerCase(Locale.ROOT).toCharArray()) {
+				node = node.children.computeIfAbsent(label, l -> new BuildingNode());
+				node.offer(suggestion, keep);
+			}
+		}
+
+		SuggestionTrie build() {
+			return new SuggestionTrie(root.build(keep));
+		}
+	}
+
+	private static final class BuildingNode {
+
+		private final Map<Character, BuildingNode> children = new TreeMap<>();
+
+		private List<AddOnSuggestion> candidates = new ArrayList<>();
+
+		void offer(AddOnSuggestion suggestion, int keep) {
+			candidates.add(suggestion);
+			// near the root, nodes see most of the catalog, so don't let them hold on to all of it
+			if (candidates.size() > 4 * keep) {
+				candidates = best(keep);
+			}
+		}
+
+		List<AddOnSuggestion> best(int keep) {
+			List<AddOnSuggestion> best = new ArrayList<>(keep);
+			Set<String> uids = new HashSet<>();
+			candidates.sort(RANKING);
+			for (AddOnSuggestion candidate : candidates) {
+				if (best.size() == keep) {
+					break;
+				}
+				if (uids.add(candidate.getUid())) {
+					best.add(candidate);
+				}
+			}
+			return best;
+		}
+
+		Node build(int keep) {
+			char[] labels = new char[children.size()];
+			Node[] built = new Node[children.size()];
+			int i = 0;
+			for (Map.Entry<Character, BuildingNode> child : children.entrySet()) {
+				labels[i] = child.getKey();
+				built[i] = child.getValue().build(keep);
+				i++;
+			}
+			return new Node(labels, built, best(keep).toArray(new AddOnSuggestion[0]));
+		}
+	}
+
+}
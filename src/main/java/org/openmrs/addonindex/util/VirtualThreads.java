@@ -0,0 +1,83 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+
+package org.openmrs.addonindex.util;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * We still build against Java 11, so virtual threads (Java 21+) are looked up reflectively. Callers fall back to
+ * platform threads if this JVM does not support them.
+ */
+public class VirtualThreads {
+
+	private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+
+	/**
+	 * @return an executor that starts a new virtual thread for each task, or empty if this JVM does not support them
+	 */
+	public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+		try {
+			return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+		}
+		catch (ReflectiveOperationException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * @param virtual     whether virtual threads should be used (if the JVM supports them)
+	 * @param threads     size of the thread pool if we end up on platform threads
+	 * @param namePrefix  prefix for the names of platform threads
+	 * @return an executor
+	 */
+	public static ExecutorService newExecutor(boolean virtual, int threads, String namePrefix) {
+		if (virtual) {
+			Optional<ExecutorService> executor = newVirtualThreadPerTaskExecutor();
+			if (executor.isPresent()) {
+				return executor.get();
+			}
+			log.warn("Virtual threads require Java 21 or later, using {} platform threads instead", threads);
+		}
+		return Executors.newFixedThreadPool(Math.max(1, threads), daemonThreads(namePrefix));
+	}
+
+	/**
+	 * Like {@link #newExecutor(boolean, int, String)}, but on platform threads it starts a new thread whenever none is
+	 * free, for a few tasks that may each wait for a long time
+	 */
+	public static ExecutorService newUnboundedExecutor(boolean virtual, String namePrefix) {
+		if (virtual) {
+			Optional<ExecutorService> executor = newVirtualThreadPerTaskExecutor();
+			if (executor.isPresent()) {
+				return executor.get();
+			}
+			log.warn("Virtual threads require Java 21 or later, using platform threads instead");
+		}
+		return Executors.newCachedThreadPool(daemonThreads(namePrefix));
+	}
+
+	private static ThreadFactory daemonThreads(String namePrefix) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
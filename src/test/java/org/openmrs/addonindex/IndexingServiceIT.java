@@ -5,22 +5,30 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.openmrs.addonindex.backend.BackendHandler;
 import org.openmrs.addonindex.backend.OpenmrsMavenRepo;
+import org.openmrs.addonindex.domain.AddOnFilter;
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.AddOnInfoSummary;
 import org.openmrs.addonindex.domain.AddOnList;
 import org.openmrs.addonindex.domain.AddOnReference;
 import org.openmrs.addonindex.domain.AddOnToIndex;
 import org.openmrs.addonindex.domain.AddOnType;
 import org.openmrs.addonindex.domain.AddOnVersion;
 import org.openmrs.addonindex.domain.MaterializedAddOnList;
+import org.openmrs.addonindex.domain.ResultsPage;
 import org.openmrs.addonindex.service.ElasticSearchIndex;
+import org.openmrs.addonindex.service.FacetIndex;
+import org.openmrs.addonindex.service.Index;
 import org.openmrs.addonindex.service.IndexingService;
 import org.openmrs.addonindex.util.Version;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +43,9 @@ public class IndexingServiceIT {
 	
 	@Autowired
 	private IndexingService indexingService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
 	
 	@Test
 	public void testBackendHandlersAreRegistered() {
@@ -78,4 +89,53 @@ public class IndexingServiceIT {
 		assertThat(materialized.getAddOns().get(0).getDetails().getUid(), is(info.getUid()));
 		assertThat(materialized.getAddOns().get(0).getDetails().getLatestVersion(), is(version.getVersion()));
 	}
+
+	@Test
+	public void testIndexingOnlyUpdatesDownloadCountsIfNothingElseChanged() throws Exception {
+		AddOnInfoAndVersions existing = xforms(100);
+		AddOnInfoAndVersions fetched = xforms(120);
+
+		indexingService.index(fetched, existing);
+		verify(elasticSearchIndex).updateFields("org.openmrs.module.xforms",
+				Collections.singletonMap("downloadCountInLast30Days", 120));
+		verify(elasticSearchIndex, never()).index(any());
+
+		indexingService.index(xforms(100), existing);
+		verify(elasticSearchIndex).updateFields(any(), any());
+		verify(elasticSearchIndex, never()).index(any());
+
+		AddOnVersion released = new AddOnVersion();
+		released.setVersion(new Version("2.1"));
+		fetched.addVersion(released);
+		indexingService.index(fetched, existing);
+		verify(elasticSearchIndex).index(fetched);
+	}
+
+	@Test
+	public void testUnchangedAddOnsAreStillGivenToTheFacetIndex() throws Exception {
+		// as if it failed to load at startup
+		FacetIndex facetIndex = new FacetIndex(elasticSearchIndex);
+		IndexingService service = new IndexingService(elasticSearchIndex, objectMapper, facetIndex);
+
+		service.index(xforms(100), xforms(100));
+		verify(elasticSearchIndex, never()).index(any());
+		verify(elasticSearchIndex, never()).updateFields(any(), any());
+
+		ResultsPage<AddOnInfoSummary> listed = facetIndex.list(new AddOnFilter(), Index.MAX_PAGE_SIZE, null);
+		assertThat(listed.getResults(), hasSize(1));
+		assertThat(listed.getResults().get(0).getUid(), is("org.openmrs.module.xforms"));
+	}
+
+	private AddOnInfoAndVersions xforms(int downloads) {
+		AddOnVersion version = new AddOnVersion();
+		version.setVersion(new Version("2.0"));
+
+		AddOnInfoAndVersions info = new AddOnInfoAndVersions();
+		info.setUid("org.openmrs.module.xforms");
+		info.setName("XForms");
+		info.setType(AddOnType.OMOD);
+		info.addVersion(version);
+		info.setDownloadCountInLast30Days(downloads);
+		return info;
+	}
 }
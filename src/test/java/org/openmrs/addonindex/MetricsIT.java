@@ -0,0 +1,44 @@
+package org.openmrs.addonindex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.addonindex.service.ElasticSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMetrics
+public class MetricsIT {
+
+	@LocalServerPort
+	private int port;
+
+	@MockBean
+	@SuppressWarnings("unused")
+	private ElasticSearchIndex elasticSearchIndex;
+
+	@Autowired
+	private TestRestTemplate testRestTemplate;
+
+	@Test
+	public void testPrometheusEndpoint() throws Exception {
+		testRestTemplate.getForEntity("http://localhost:" + port + "/api/v1/addon", String.class);
+
+		ResponseEntity<String> entity = testRestTemplate.getForEntity("http://localhost:" + port + "/actuator/prometheus",
+				String.class);
+
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		assertThat(entity.getBody(), containsString("http_server_requests_seconds_bucket{"));
+		assertThat(entity.getBody(), containsString("uri=\"/api/v1/addon\""));
+	}
+
+}
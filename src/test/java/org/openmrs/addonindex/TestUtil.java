@@ -1,11 +1,14 @@
 package org.openmrs.addonindex;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openmrs.addonindex.domain.AddOnVersion;
 import org.openmrs.addonindex.domain.AllAddOnsToIndex;
 import org.openmrs.addonindex.service.IndexingService;
+import org.openmrs.addonindex.util.Version;
 import org.springframework.util.StreamUtils;
 
 public class TestUtil {
@@ -15,6 +18,17 @@ public class TestUtil {
 				.defaultCharset());
 	}
 	
+	public static InputStream getFileAsStream(String resourcePath) {
+		return TestUtil.class.getClassLoader().getResourceAsStream(resourcePath);
+	}
+
+	public static AddOnVersion version(String version, String requireOpenmrsVersion) {
+		AddOnVersion addOnVersion = new AddOnVersion();
+		addOnVersion.setVersion(new Version(version));
+		addOnVersion.setRequireOpenmrsVersion(requireOpenmrsVersion);
+		return addOnVersion;
+	}
+	
 	public static void loadLocalAddOnsToIndex(ObjectMapper objectMapper, IndexingService indexingService) throws
 			IOException {
 		String json = getFileAsString("add-ons-to-index.json");
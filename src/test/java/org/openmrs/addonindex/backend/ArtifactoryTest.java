@@ -2,7 +2,9 @@ package org.openmrs.addonindex.backend;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
@@ -11,6 +13,8 @@ import static org.mockito.Mockito.when;
 import static org.openmrs.addonindex.TestUtil.getFileAsString;
 
 import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -117,4 +121,48 @@ class ArtifactoryTest {
 				equalTo(OffsetDateTime.parse("2020-10-01T21:13:09.787Z")));
 	}
 
+	@Test
+	public void shouldFindChangedOmodsWithCredentials() throws Exception {
+		// setup
+		artifactory = new Artifactory(restTemplate, "some_api_key");
+
+		@SuppressWarnings("unchecked")
+		ResponseEntity<AqlSearchResponse> searchResponse = mock(ResponseEntity.class);
+
+		when(restTemplate.execute(eq(Artifactory.AQL_URL), eq(HttpMethod.POST), any(), any()))
+				.thenReturn(searchResponse);
+		when(searchResponse.getStatusCode()).thenReturn(HttpStatus.OK);
+		when(searchResponse.getBody()).thenReturn(
+				objectMapper.readValue(getFileAsString("artifactory-aql-response.json"), AqlSearchResponse.class));
+
+		AddOnToIndex fhir2 = new AddOnToIndex();
+		fhir2.setUid("org.openmrs.module.fhir2");
+		fhir2.setType(AddOnType.OMOD);
+		fhir2.setMavenRepoDetails(new MavenRepoDetails("org.openmrs.module", "fhir2"));
+
+		AddOnToIndex appui = new AddOnToIndex();
+		appui.setUid("org.openmrs.module.appui");
+		appui.setType(AddOnType.OMOD);
+		appui.setMavenRepoDetails(new MavenRepoDetails("org.openmrs.module", "appui"));
+
+		// execution
+		Set<String> changed = artifactory.findChangedSince(Arrays.asList(fhir2, appui),
+				OffsetDateTime.parse("2020-10-01T00:00:00Z"));
+
+		// assertions
+		assertThat(changed, contains("org.openmrs.module.fhir2"));
+	}
+
+	@Test
+	public void shouldNotFindChangesWithoutCredentials() throws Exception {
+		artifactory = new Artifactory(restTemplate, null);
+
+		AddOnToIndex fhir2 = new AddOnToIndex();
+		fhir2.setUid("org.openmrs.module.fhir2");
+		fhir2.setType(AddOnType.OMOD);
+		fhir2.setMavenRepoDetails(new MavenRepoDetails("org.openmrs.module", "fhir2"));
+
+		assertThat(artifactory.findChangedSince(Arrays.asList(fhir2), OffsetDateTime.now()), nullValue());
+	}
+
 }
@@ -12,7 +12,6 @@ import static org.openmrs.addonindex.TestUtil.getFileAsString;
 import java.time.OffsetDateTime;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
@@ -20,7 +19,10 @@ import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnToIndex;
 import org.openmrs.addonindex.domain.AddOnType;
 import org.openmrs.addonindex.domain.backend.BintrayPackageDetails;
+import org.openmrs.addonindex.domain.bintray.BintrayFile;
+import org.openmrs.addonindex.domain.bintray.BintrayPackage;
 import org.openmrs.addonindex.util.Version;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.json.JsonTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -35,11 +37,14 @@ public class BintrayTest {
 	@MockBean
 	private RestTemplate restTemplate;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	private Bintray bintray;
 
 	@BeforeEach
 	public void setUp() {
-		bintray = new Bintray(builder, new ObjectMapper());
+		bintray = new Bintray(builder);
 		MockitoAnnotations.openMocks(this);
 		when(builder.basicAuthentication(any(), any())).thenReturn(builder);
 		when(builder.build()).thenReturn(restTemplate);
@@ -47,11 +52,12 @@ public class BintrayTest {
 
 	@Test
 	public void testHandleJson() throws Exception {
-		String json = getFileAsString("bintray-package.json");
+		BintrayPackage bintrayPackage = objectMapper.readValue(getFileAsString("bintray-package.json"),
+				BintrayPackage.class);
 
 		when(restTemplate.getForObject("https://bintray.com/api/v1/packages/openmrs/owa/openmrs-owa-conceptdictionary/"
-				+ "versions/1.0.0/files?include_unpublished=0", ArrayNode.class))
-				.thenReturn(new ObjectMapper().readValue(getFileAsString("bintray-version-files.json"), ArrayNode.class));
+				+ "versions/1.0.0/files?include_unpublished=0", BintrayFile[].class))
+				.thenReturn(objectMapper.readValue(getFileAsString("bintray-version-files.json"), BintrayFile[].class));
 
 		AddOnToIndex addOnToIndex = new AddOnToIndex();
 		addOnToIndex.setType(AddOnType.OWA);
@@ -60,7 +66,7 @@ public class BintrayTest {
 		addOnToIndex.setBintrayPackageDetails(new BintrayPackageDetails("openmrs", "owa",
 				"openmrs-owa-conceptdictionary"));
 
-		AddOnInfoAndVersions info = bintray.handlePackageJson(addOnToIndex, json);
+		AddOnInfoAndVersions info = bintray.handlePackage(addOnToIndex, bintrayPackage);
 		assertThat(info.getName(), is("openmrs-owa-conceptdictionary"));
 		assertThat(info.getDescription(),
 				is("Provides web interface for managing concept dictionary in OpenMRS distributions. Requires Open Web App "
@@ -11,7 +11,6 @@ import static org.openmrs.addonindex.TestUtil.getFileAsString;
 import java.time.OffsetDateTime;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -20,6 +19,8 @@ import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnToIndex;
 import org.openmrs.addonindex.domain.AddOnType;
 import org.openmrs.addonindex.domain.backend.ModulusModuleDetails;
+import org.openmrs.addonindex.domain.modulus.ModulusModule;
+import org.openmrs.addonindex.domain.modulus.ModulusRelease;
 import org.openmrs.addonindex.util.Version;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.web.client.RestTemplate;
@@ -32,12 +33,14 @@ public class ModulusTest {
 	@Mock
 	private RestTemplate restTemplate;
 
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
 	private Modulus modulus;
 	
 	@BeforeEach
 	public void setUp() {
 		MockitoAnnotations.openMocks(this);
-		modulus = new Modulus(restTemplateBuilder, new ObjectMapper());
+		modulus = new Modulus(restTemplateBuilder);
 		when(restTemplateBuilder.build()).thenReturn(restTemplate);
 	}
 	
@@ -49,13 +52,13 @@ public class ModulusTest {
 		addOnToIndex.setBackend(Modulus.class);
 		addOnToIndex.setModulusDetails(new ModulusModuleDetails("3"));
 		
-		String json = getFileAsString("modulus-module.json");
+		ModulusModule module = objectMapper.readValue(getFileAsString("modulus-module.json"), ModulusModule.class);
 		
 		when(restTemplate.getForObject("https://modules.openmrs.org/modulus/api/modules/3/releases?max=1000",
-				ArrayNode.class))
-				.thenReturn(new ObjectMapper().readValue(getFileAsString("modulus-releases.json"), ArrayNode.class));
+				ModulusRelease[].class))
+				.thenReturn(objectMapper.readValue(getFileAsString("modulus-releases.json"), ModulusRelease[].class));
 		
-		AddOnInfoAndVersions info = modulus.handleModuleJson(addOnToIndex, json);
+		AddOnInfoAndVersions info = modulus.handleModule(addOnToIndex, module);
 		assertThat(info.getName(), is("Address Hierarchy"));
 		assertThat(info.getDescription(),
 				is("Allows for the entry of structured addresses."));
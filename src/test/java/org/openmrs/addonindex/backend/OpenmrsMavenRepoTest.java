@@ -3,6 +3,7 @@ package org.openmrs.addonindex.backend;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
+import java.io.InputStream;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -16,7 +17,7 @@ public class OpenmrsMavenRepoTest {
 	
 	@Test
 	public void testHandlingNexusXml() throws Exception {
-		String xml = TestUtil.getFileAsString("indexBrowserTreeViewResponse.xml");
+		InputStream xml = TestUtil.getFileAsStream("indexBrowserTreeViewResponse.xml");
 		
 		AddOnToIndex toIndex = new AddOnToIndex();
 		toIndex.setUid("appui-module");
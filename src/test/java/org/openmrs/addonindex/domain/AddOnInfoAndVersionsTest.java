@@ -3,8 +3,12 @@ package org.openmrs.addonindex.domain;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.openmrs.addonindex.TestUtil.version;
+
+import java.util.Arrays;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.Test;
 import org.openmrs.addonindex.util.Version;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -80,4 +84,45 @@ public class AddOnInfoAndVersionsTest {
         assertThat(info.getModuleId(), is("1"));
         assertThat(info.getModulePackage(), is("org.openmrs.module.openmrs"));
     }
+
+	@Test
+	public void testFindingUpdates() {
+		AddOnInfoAndVersions info = new AddOnInfoAndVersions();
+		info.addVersion(version("1.0", "1.9.0"));
+		info.addVersion(version("1.1", "1.9.0"));
+		info.addVersion(version("2.0", "2.1.0"));
+
+		assertThat(info.findUpdate(new Version("1.0"), "2.2.0").getVersion(), is(new Version("2.0")));
+		assertThat(info.findUpdate(new Version("1.0"), "2.0.0").getVersion(), is(new Version("1.1")));
+		assertThat(info.findUpdate(new Version("1.1"), "2.0.0"), nullValue());
+		assertThat(info.findUpdate(new Version("2.0"), null), nullValue());
+		assertThat(info.findUpdate(null, null).getVersion(), is(new Version("2.0")));
+	}
+
+	@Test
+	public void testSummarySourceFieldsAreEnoughForASummary() throws Exception {
+		AddOnVersion version = new AddOnVersion();
+		version.setVersion(new Version("1.2"));
+		version.setModulePackage("org.openmrs.module.reporting");
+
+		AddOnInfoAndVersions info = new AddOnInfoAndVersions();
+		info.setUid("org.openmrs.module.reporting");
+		info.setStatus(AddOnStatus.ACTIVE);
+		info.setType(AddOnType.OMOD);
+		info.setName("Reporting");
+		info.setDescription("Reports");
+		info.setIcon("icon.png");
+		info.setTags(Arrays.asList("reports"));
+		info.setDownloadCountInLast30Days(7);
+		info.addVersion(version);
+
+		// what ElasticSearchIndex gets back when it only fetches these fields
+		ObjectNode source = objectMapper.valueToTree(info);
+		source.retain(AddOnInfoSummary.SOURCE_FIELDS);
+		AddOnInfoSummary summary = objectMapper.treeToValue(source, AddOnInfoSummary.class);
+
+		assertThat(summary, is(new AddOnInfoSummary(info)));
+		assertThat(summary.getVersionCount(), is(1));
+		assertThat(summary.getLatestVersion(), is(new Version("1.2")));
+	}
 }
@@ -0,0 +1,46 @@
+package org.openmrs.addonindex.domain;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class AllAddOnsToIndexTest {
+
+	@Test
+	public void testGetUidsChangedFrom() throws Exception {
+		AllAddOnsToIndex previous = new AllAddOnsToIndex();
+		previous.setToIndex(Arrays.asList(addOn("unchanged", "Unchanged"), addOn("renamed", "Old name")));
+
+		AllAddOnsToIndex current = new AllAddOnsToIndex();
+		current.setToIndex(Arrays.asList(addOn("unchanged", "Unchanged"), addOn("renamed", "New name"),
+				addOn("added", "Added")));
+
+		assertThat(current.getUidsChangedFrom(previous), contains("renamed", "added"));
+		assertThat(current.getUidsChangedFrom(current), empty());
+	}
+
+	@Test
+	public void testIndexingQueuePriority() throws Exception {
+		IndexingQueue queue = new IndexingQueue();
+		queue.add("changed", IndexingQueue.Reason.DEFINITION_CHANGED);
+		queue.add("released", IndexingQueue.Reason.NEW_RELEASE);
+		queue.add("changed", IndexingQueue.Reason.NEW_RELEASE);
+
+		assertThat(queue.getUids(), contains("released", "changed"));
+		queue.remove("released");
+		assertThat(queue.getUids(), contains("changed"));
+	}
+
+	private AddOnToIndex addOn(String uid, String name) {
+		AddOnToIndex addOn = new AddOnToIndex();
+		addOn.setUid(uid);
+		addOn.setName(name);
+		addOn.setType(AddOnType.OMOD);
+		return addOn;
+	}
+
+}
@@ -0,0 +1,72 @@
+package org.openmrs.addonindex.domain;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+public class IndexingStatusTest {
+
+	@Test
+	public void testHistoryKeepsMostRecentAttempts() throws Exception {
+		AddOnToIndex addOn = new AddOnToIndex();
+		addOn.setUid("appui");
+
+		IndexingStatus status = new IndexingStatus();
+		for (int i = 0; i < IndexingStatus.HISTORY_SIZE + 5; i++) {
+			status.recordAttempt(addOn, attempt(i));
+		}
+
+		List<IndexingAttempt> attempts = status.getHistories().get("appui");
+		assertThat(attempts, hasSize(IndexingStatus.HISTORY_SIZE));
+		assertThat(attempts.get(0).getBytesFetched(), is((long) IndexingStatus.HISTORY_SIZE + 4));
+		assertThat(attempts.get(IndexingStatus.HISTORY_SIZE - 1).getBytesFetched(), is(5L));
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+		IndexingStatus status = new IndexingStatus();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 1000; i++) {
+						AddOnToIndex addOn = new AddOnToIndex();
+						addOn.setUid("addon" + (i % 50));
+						status.setStatus(addOn, IndexingStatus.Status.indexingNow());
+						status.setStatus(addOn, IndexingStatus.Status.error(new Exception()));
+						status.recordAttempt(addOn, attempt(i));
+						status.getStatuses();
+						status.getHistories();
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(status.getStatuses().size(), is(50));
+		assertThat(status.getModifications(), is(16000L));
+		// each add-on failed 8 threads x 20 times in a row
+		assertThat(status.getStatuses().get("addon0").getConsecutiveErrors(), is(160));
+		assertThat(status.getHistories().get("addon0"), hasSize(IndexingStatus.HISTORY_SIZE));
+	}
+
+	private IndexingAttempt attempt(long bytes) {
+		return new IndexingAttempt(OffsetDateTime.now(), 1, IndexingAttempt.Outcome.SUCCESS, bytes, null);
+	}
+
+}
@@ -1,27 +1,40 @@
 package org.openmrs.addonindex.rest;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
 import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnInfoSummary;
+import org.openmrs.addonindex.domain.AddOnStatus;
 import org.openmrs.addonindex.domain.AddOnVersion;
+import org.openmrs.addonindex.domain.ResultsPage;
+import org.openmrs.addonindex.service.FacetIndex;
 import org.openmrs.addonindex.service.Index;
 import org.openmrs.addonindex.util.Version;
 import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
@@ -35,6 +48,9 @@ public class AddOnControllerIT {
 	@MockBean
 	private Index index;
 
+	@Autowired
+	private FacetIndex facetIndex;
+
 	@Autowired
 	private TestRestTemplate testRestTemplate;
 
@@ -53,7 +69,10 @@ public class AddOnControllerIT {
 		info.setDescription("For reporting");
 		info.addVersion(version);
 
-		when(index.search(null, "report", null)).thenReturn(singletonList(new AddOnInfoSummary(info)));
+		when(index.search(null, "report", null, null, false, Index.MAX_PAGE_SIZE, null))
+				.thenReturn(new ResultsPage<>(singletonList(new AddOnInfoSummary(info)), null));
+		when(index.search(null, "report", null, null, false, 1, null))
+				.thenReturn(new ResultsPage<>(singletonList(new AddOnInfoSummary(info)), "cursor"));
 		when(index.getByModulePackage("org.openmrs.module.reporting-module")).thenReturn(info);
 		when(index.getByUid("reporting-module")).thenReturn(info);
 	}
@@ -72,6 +91,62 @@ public class AddOnControllerIT {
 				entity.getBody(), false);
 	}
 
+	@Test
+	public void testSearchLinksToTheNextPage() throws Exception {
+		ResponseEntity<String> entity = testRestTemplate.getForEntity(
+				"http://localhost:" + port + "/api/v1/addon?q=report&size=1", String.class);
+
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		assertThat(entity.getHeaders().getFirst(HttpHeaders.LINK),
+				is("<http://localhost:" + port + "/api/v1/addon?q=report&size=1&after=cursor>; rel=\"next\""));
+
+		entity = testRestTemplate.getForEntity("http://localhost:" + port + "/api/v1/addon?q=report", String.class);
+		assertThat(entity.getHeaders().containsKey(HttpHeaders.LINK), is(false));
+	}
+
+	@Test
+	public void testFilteringOnFacets() throws Exception {
+		AddOnVersion version = new AddOnVersion();
+		version.setVersion(new Version("1.0"));
+		version.setSupportedLanguages(singletonList("fr"));
+		AddOnInfoAndVersions french = new AddOnInfoAndVersions();
+		french.setUid("french-module");
+		french.setStatus(AddOnStatus.ACTIVE);
+		french.addVersion(version);
+		facetIndex.put(french);
+		when(index.search(null, "report", null, singleton("french-module"), false, Index.MAX_PAGE_SIZE, null))
+				.thenReturn(new ResultsPage<>(emptyList(), null));
+
+		ResponseEntity<String> entity = testRestTemplate.getForEntity(
+				"http://localhost:" + port + "/api/v1/addon?language=fr", String.class);
+		JSONAssert.assertEquals("[{uid:\"french-module\"}]", entity.getBody(), JSONCompareMode.STRICT_ORDER);
+
+		entity = testRestTemplate.getForEntity(
+				"http://localhost:" + port + "/api/v1/addon?q=report&status=ACTIVE&language=fr", String.class);
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		JSONAssert.assertEquals("[]", entity.getBody(), true);
+	}
+
+	@Test
+	public void testFacetCounts() throws Exception {
+		AddOnInfoAndVersions french = new AddOnInfoAndVersions();
+		french.setUid("french-module");
+		french.setTags(singletonList("reports"));
+		facetIndex.put(french);
+		ResultsPage<AddOnInfoSummary> page = new ResultsPage<>(emptyList(), null);
+		page.setFacets(singletonMap("tag", singletonMap("reports", 7L)));
+		when(index.search(null, "report", null, null, true, Index.MAX_PAGE_SIZE, null)).thenReturn(page);
+
+		ResponseEntity<String> entity = testRestTemplate.getForEntity(
+				"http://localhost:" + port + "/api/v1/addon?tag=reports&facets=true", String.class);
+		JSONAssert.assertEquals("{results:[{uid:\"french-module\"}],facets:{tag:{reports:1}}}", entity.getBody(),
+				false);
+
+		entity = testRestTemplate.getForEntity("http://localhost:" + port + "/api/v1/addon?q=report&facets=true",
+				String.class);
+		JSONAssert.assertEquals("{results:[],facets:{tag:{reports:7}}}", entity.getBody(), false);
+	}
+
 	@Test
 	public void testCors() {
 		ResponseEntity<String> entity = testRestTemplate.exchange(RequestEntity.get(
@@ -81,6 +156,50 @@ public class AddOnControllerIT {
 		assertThat(entity.getHeaders().getAccessControlAllowOrigin(), is("*"));
 	}
 
+	@Test
+	public void testLookingUpMany() throws Exception {
+		AddOnInfoAndVersions reporting = index.getByUid("reporting-module");
+		when(index.getByUids(new LinkedHashSet<>(Arrays.asList("reporting-module", "missing-module"))))
+				.thenReturn(singletonMap("reporting-module", reporting));
+
+		ResponseEntity<String> entity = testRestTemplate.getForEntity("http://localhost:" + port
+				+ "/api/v1/addons?uid=reporting-module&uid=missing-module&uid=reporting-module&fields=name,latestVersion",
+				String.class);
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		JSONAssert.assertEquals("[{uid:\"reporting-module\",found:true,"
+						+ "addOn:{name:\"Reporting Module\",latestVersion:\"1.0\"}},"
+						+ "{uid:\"missing-module\",found:false}]",
+				entity.getBody(), true);
+
+		entity = testRestTemplate.postForEntity("http://localhost:" + port + "/api/v1/addons",
+				Arrays.asList("reporting-module", "missing-module"), String.class);
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		JSONAssert.assertEquals("[{uid:\"reporting-module\",found:true,"
+						+ "addOn:{uid:\"reporting-module\",description:\"For reporting\",versions:[{version:\"1.0\"}]}},"
+						+ "{uid:\"missing-module\",found:false}]",
+				entity.getBody(), false);
+	}
+
+	@Test
+	public void testLookingUpTooMany() {
+		List<String> uids = IntStream.range(0, Index.MAX_PAGE_SIZE + 1).mapToObj(i -> "module" + i)
+				.collect(Collectors.toList());
+		ResponseEntity<String> entity = testRestTemplate.postForEntity("http://localhost:" + port + "/api/v1/addons",
+				uids, String.class);
+		assertThat(entity.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+	}
+
+	@Test
+	public void testCorsAllowsPostingLookups() {
+		ResponseEntity<String> entity = testRestTemplate.exchange(RequestEntity.options(
+				uri("http://localhost:" + port + "/api/v1/addons"))
+				.header(HttpHeaders.ORIGIN, "http://openmrs.org/news")
+				.header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "POST").build(), String.class);
+
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		assertThat(entity.getHeaders().getAccessControlAllowMethods().contains(HttpMethod.POST), is(true));
+	}
+
 	@Test
 	public void getByModulePackage() throws Exception {
 		ResponseEntity<String> entity = testRestTemplate.getForEntity(
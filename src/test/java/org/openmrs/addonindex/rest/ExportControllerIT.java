@@ -0,0 +1,99 @@
+package org.openmrs.addonindex.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.service.Index;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ExportControllerIT {
+
+	@LocalServerPort
+	private int port;
+
+	@MockBean
+	private Index index;
+
+	@Autowired
+	private TestRestTemplate testRestTemplate;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		when(index.getGeneration()).thenReturn("abc-2");
+		doAnswer(invocation -> {
+			Index.AddOnAction action = invocation.getArgument(0);
+			action.accept(addOn("reporting-module", "Reporting"));
+			action.accept(addOn("htmlformentry-module", "HTML Form Entry"));
+			return null;
+		}).when(index).forEach(any());
+	}
+
+	@Test
+	public void testExport() throws Exception {
+		ResponseEntity<String> entity = testRestTemplate.getForEntity("http://localhost:" + port + "/api/v1/export",
+				String.class);
+
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		assertThat(entity.getHeaders().getETag(), is("\"abc-2\""));
+		assertThat(entity.getHeaders().getContentType().isCompatibleWith(ExportController.NDJSON), is(true));
+		String[] lines = entity.getBody().split("\n");
+		assertThat(lines.length, is(2));
+		JSONAssert.assertEquals("{uid:\"reporting-module\",name:\"Reporting\"}", lines[0], false);
+		JSONAssert.assertEquals("{uid:\"htmlformentry-module\",name:\"HTML Form Entry\"}", lines[1], false);
+	}
+
+	@Test
+	public void testExportGzipped() throws Exception {
+		// unlike TestRestTemplate's HTTP client, this one leaves the body compressed
+		RestTemplate restTemplate = new RestTemplate(new SimpleClientHttpRequestFactory());
+		ResponseEntity<byte[]> entity = restTemplate.exchange(RequestEntity.get(
+				URI.create("http://localhost:" + port + "/api/v1/export"))
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip").build(), byte[].class);
+
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		assertThat(entity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), is("gzip"));
+		String body = StreamUtils.copyToString(new GZIPInputStream(new ByteArrayInputStream(entity.getBody())),
+				StandardCharsets.UTF_8);
+		assertThat(body.split("\n").length, is(2));
+	}
+
+	@Test
+	public void testNotModified() {
+		ResponseEntity<String> entity = testRestTemplate.exchange(RequestEntity.get(
+				URI.create("http://localhost:" + port + "/api/v1/export"))
+				.header(HttpHeaders.IF_NONE_MATCH, "\"abc-2\"").build(), String.class);
+
+		assertThat(entity.getStatusCode(), is(HttpStatus.NOT_MODIFIED));
+	}
+
+	private AddOnInfoAndVersions addOn(String uid, String name) {
+		AddOnInfoAndVersions addOn = new AddOnInfoAndVersions();
+		addOn.setUid(uid);
+		addOn.setName(name);
+		return addOn;
+	}
+}
@@ -0,0 +1,62 @@
+package org.openmrs.addonindex.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.openmrs.addonindex.TestUtil.version;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.service.Index;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * {@link AddOnControllerIT} mocks the index, this uses the real in-memory one, which hands out what it has stored
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "index.backend=memory")
+public class InMemoryAddOnControllerIT {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private Index index;
+
+	@Autowired
+	private TestRestTemplate testRestTemplate;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		AddOnInfoAndVersions info = new AddOnInfoAndVersions();
+		info.setUid("org.openmrs.module.reporting");
+		info.setName("Reporting");
+		info.addVersion(version("1.0", "1.9.0"));
+		info.addVersion(version("2.0", "1.9.0"));
+		index.index(info);
+	}
+
+	@Test
+	public void testGettingOneDoesNotChangeWhatIsIndexed() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			ResponseEntity<String> entity = testRestTemplate.getForEntity(
+					"http://localhost:" + port + "/api/v1/addon/org.openmrs.module.reporting", String.class);
+			assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+			// oldest first
+			JSONAssert.assertEquals("{versions:[{version:\"1.0\"},{version:\"2.0\"}]}", entity.getBody(),
+					JSONCompareMode.STRICT_ORDER);
+		}
+
+		ResponseEntity<String> entity = testRestTemplate.getForEntity("http://localhost:" + port
+				+ "/api/v1/addon/org.openmrs.module.reporting/latestVersion?coreversion=2.0.0", String.class);
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		JSONAssert.assertEquals("{version:\"2.0\"}", entity.getBody(), false);
+	}
+
+}
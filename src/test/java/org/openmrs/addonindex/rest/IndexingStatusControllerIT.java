@@ -0,0 +1,72 @@
+package org.openmrs.addonindex.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.addonindex.domain.AddOnToIndex;
+import org.openmrs.addonindex.domain.IndexingStatus;
+import org.openmrs.addonindex.service.ElasticSearchIndex;
+import org.openmrs.addonindex.service.IndexingService;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class IndexingStatusControllerIT {
+
+	@LocalServerPort
+	private int port;
+
+	@MockBean
+	@SuppressWarnings("unused")
+	private ElasticSearchIndex elasticSearchIndex;
+
+	@Autowired
+	private IndexingService indexingService;
+
+	@Test
+	public void testStream() throws Exception {
+		HttpURLConnection connection = (HttpURLConnection) new URL(
+				"http://localhost:" + port + "/api/v1/indexingstatus/stream").openConnection();
+		connection.setReadTimeout(10000);
+		assertThat(connection.getResponseCode(), is(200));
+		assertThat(connection.getContentType().startsWith("text/event-stream"), is(true));
+
+		AddOnToIndex addOn = new AddOnToIndex();
+		addOn.setUid("appui-omod");
+		indexingService.getIndexingStatus().setStatus(addOn, IndexingStatus.Status.indexingNow());
+		indexingService.getIndexingStatus().setStatus(addOn, IndexingStatus.Status.error(new IllegalStateException()));
+
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+			JSONAssert.assertEquals("{uid:\"appui-omod\",state:\"INDEXING\"}", nextData(reader), false);
+			String data = nextData(reader);
+			JSONAssert.assertEquals("{uid:\"appui-omod\",state:\"ERROR\",error:\"java.lang.IllegalStateException\"}",
+					data, false);
+			assertThat(data.contains("durationMillis"), is(true));
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private String nextData(BufferedReader reader) throws Exception {
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.startsWith("data:")) {
+				return line.substring("data:".length());
+			}
+		}
+		throw new IllegalStateException("Stream ended");
+	}
+
+}
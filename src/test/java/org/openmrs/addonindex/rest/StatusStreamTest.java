@@ -0,0 +1,85 @@
+package org.openmrs.addonindex.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class StatusStreamTest {
+
+	// like a virtual thread per task executor, the worst case for ordering
+	private final Executor threadPerTask = runnable -> new Thread(runnable).start();
+
+	@Test
+	public void testEventsAreSentInOrderOneAtATime() throws Exception {
+		List<Integer> sent = new CopyOnWriteArrayList<>();
+		AtomicInteger sending = new AtomicInteger();
+		AtomicInteger mostAtOnce = new AtomicInteger();
+		CountDownLatch allSent = new CountDownLatch(200);
+		StatusStream<Integer> stream = new StatusStream<>(1000, threadPerTask, event -> {
+			mostAtOnce.accumulateAndGet(sending.incrementAndGet(), Math::max);
+			Thread.sleep(event % 10 == 0 ? 1 : 0);
+			sent.add(event);
+			sending.decrementAndGet();
+			allSent.countDown();
+		}, closed -> {});
+
+		for (int i = 0; i < 200; i++) {
+			stream.accept(i);
+		}
+
+		assertThat(allSent.await(10, TimeUnit.SECONDS), is(true));
+		assertThat(sent, is(IntStream.range(0, 200).boxed().collect(Collectors.toList())));
+		assertThat(mostAtOnce.get(), is(1));
+	}
+
+	@Test
+	public void testClientThatFallsBehindIsClosed() throws Exception {
+		CountDownLatch stalled = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Integer> sent = new CopyOnWriteArrayList<>();
+		AtomicInteger closes = new AtomicInteger();
+		StatusStream<Integer> stream = new StatusStream<>(2, threadPerTask, event -> {
+			stalled.countDown();
+			release.await();
+			sent.add(event);
+		}, closed -> closes.incrementAndGet());
+
+		stream.accept(0);
+		assertThat(stalled.await(10, TimeUnit.SECONDS), is(true));
+		stream.accept(1);
+		stream.accept(2);
+		assertThat(closes.get(), is(0));
+		stream.accept(3);
+		assertThat(closes.get(), is(1));
+
+		release.countDown();
+		stream.accept(4);
+		stream.close();
+		assertThat(closes.get(), is(1));
+		Thread.sleep(100);
+		assertThat(sent, contains(0));
+	}
+
+	@Test
+	public void testFailingToSendClosesTheStream() throws Exception {
+		CountDownLatch closed = new CountDownLatch(1);
+		StatusStream<Integer> stream = new StatusStream<>(10, threadPerTask, event -> {
+			throw new IllegalStateException("client went away");
+		}, s -> closed.countDown());
+
+		stream.accept(0);
+		assertThat(closed.await(10, TimeUnit.SECONDS), is(true));
+	}
+
+}
@@ -0,0 +1,51 @@
+package org.openmrs.addonindex.rest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.addonindex.domain.AddOnSuggestion;
+import org.openmrs.addonindex.domain.AddOnType;
+import org.openmrs.addonindex.service.ElasticSearchIndex;
+import org.openmrs.addonindex.service.SuggestionService;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class SuggestionControllerIT {
+
+	@LocalServerPort
+	private int port;
+
+	@MockBean
+	private SuggestionService suggestionService;
+
+	@MockBean
+	@SuppressWarnings("unused")
+	private ElasticSearchIndex elasticSearchIndex;
+
+	@Autowired
+	private TestRestTemplate testRestTemplate;
+
+	@Test
+	public void testSuggest() throws Exception {
+		when(suggestionService.suggest("rep", SuggestionService.MAX_SUGGESTIONS)).thenReturn(Collections.singletonList(
+				new AddOnSuggestion("Reporting", "org.openmrs.module.reporting", "Reporting", AddOnType.OMOD, 1000)));
+
+		ResponseEntity<String> entity = testRestTemplate.getForEntity(
+				"http://localhost:" + port + "/api/v1/addon/suggest?q=rep", String.class);
+
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		JSONAssert.assertEquals("[{text:\"Reporting\",uid:\"org.openmrs.module.reporting\",type:\"OMOD\","
+				+ "downloadCountInLast30Days:1000}]", entity.getBody(), false);
+	}
+}
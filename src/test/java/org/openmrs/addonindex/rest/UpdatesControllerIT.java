@@ -0,0 +1,70 @@
+package org.openmrs.addonindex.rest;
+
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.openmrs.addonindex.TestUtil.version;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.InstalledModule;
+import org.openmrs.addonindex.domain.UpdateCheck;
+import org.openmrs.addonindex.service.Index;
+import org.openmrs.addonindex.util.Version;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class UpdatesControllerIT {
+
+	@LocalServerPort
+	private int port;
+
+	@MockBean
+	private Index index;
+
+	@Autowired
+	private TestRestTemplate testRestTemplate;
+
+	@Test
+	public void testCheckingForUpdates() throws Exception {
+		AddOnInfoAndVersions reporting = new AddOnInfoAndVersions();
+		reporting.setUid("org.openmrs.module.reporting");
+		reporting.addVersion(version("1.0", "1.9.0"));
+		reporting.addVersion(version("1.1", "1.9.0"));
+		reporting.addVersion(version("2.0", "2.1.0"));
+		when(index.getByUids(new LinkedHashSet<>(Arrays.asList("org.openmrs.module.reporting",
+				"org.openmrs.module.missing")))).thenReturn(singletonMap("org.openmrs.module.reporting", reporting));
+
+		UpdateCheck check = new UpdateCheck("2.0.0", Arrays.asList(
+				new InstalledModule("reporting", new Version("1.0")),
+				new InstalledModule("missing", new Version("1.0"))));
+		ResponseEntity<String> entity = testRestTemplate.postForEntity(
+				"http://localhost:" + port + "/api/v1/updates", check, String.class);
+
+		assertThat(entity.getStatusCode(), is(HttpStatus.OK));
+		JSONAssert.assertEquals("[{moduleId:\"reporting\",installedVersion:\"1.0\",found:true,"
+						+ "update:{version:\"1.1\",requireOpenmrsVersion:\"1.9.0\"}},"
+						+ "{moduleId:\"missing\",installedVersion:\"1.0\",found:false,update:null}]",
+				entity.getBody(), false);
+	}
+
+	@Test
+	public void testCheckingWithoutModules() {
+		ResponseEntity<String> entity = testRestTemplate.postForEntity(
+				"http://localhost:" + port + "/api/v1/updates", new UpdateCheck("2.0.0", null), String.class);
+
+		assertThat(entity.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+	}
+
+}
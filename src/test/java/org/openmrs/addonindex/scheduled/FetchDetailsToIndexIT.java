@@ -1,12 +1,21 @@
 package org.openmrs.addonindex.scheduled;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.beans.HasPropertyWithValue.hasProperty;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.hamcrest.MockitoHamcrest.argThat;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
@@ -17,6 +26,8 @@ import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnToIndex;
 import org.openmrs.addonindex.domain.AddOnType;
 import org.openmrs.addonindex.domain.AddOnVersion;
+import org.openmrs.addonindex.domain.AllAddOnsToIndex;
+import org.openmrs.addonindex.domain.IndexingQueue;
 import org.openmrs.addonindex.domain.IndexingStatus;
 import org.openmrs.addonindex.domain.backend.MavenRepoDetails;
 import org.openmrs.addonindex.service.ElasticSearchIndex;
@@ -107,4 +118,48 @@ public class FetchDetailsToIndexIT {
 		task.getDetailsAndIndex(toIndex);
 		then(restTemplate).should(never()).getForObject(DOWNLOAD_URI, Resource.class);
 	}
+
+	@Test
+	public void testFullPassRebuildsTheIndexEvenIfIndexingFails() throws Exception {
+		AllAddOnsToIndex allToIndex = new AllAddOnsToIndex();
+		allToIndex.getToIndex().add(toIndex);
+		given(indexingService.getAllToIndex()).willReturn(allToIndex);
+		given(indexingService.getIndexingQueue()).willReturn(new IndexingQueue());
+		willThrow(new IllegalStateException()).given(indexingService).index(any(), any());
+
+		task.run();
+
+		InOrder inOrder = Mockito.inOrder(indexingService);
+		inOrder.verify(indexingService).startRebuild();
+		inOrder.verify(indexingService).index(any(), any());
+		inOrder.verify(indexingService).finishRebuild();
+	}
+
+	@Test
+	public void testChangedAddOnsWaitWhileAFullPassRuns() throws Exception {
+		AllAddOnsToIndex allToIndex = new AllAddOnsToIndex();
+		allToIndex.getToIndex().add(toIndex);
+		IndexingQueue queue = new IndexingQueue();
+		given(indexingService.getAllToIndex()).willReturn(allToIndex);
+		given(indexingService.getIndexingQueue()).willReturn(queue);
+		CountDownLatch passStarted = new CountDownLatch(1);
+		CountDownLatch finishPass = new CountDownLatch(1);
+		willAnswer(invocation -> {
+			passStarted.countDown();
+			finishPass.await();
+			return null;
+		}).given(indexingService).startRebuild();
+
+		Thread pass = new Thread(task::run);
+		pass.start();
+		assertThat(passStarted.await(10, TimeUnit.SECONDS), is(true));
+		queue.add("appui-omod", IndexingQueue.Reason.NEW_RELEASE);
+		task.runForChanged();
+		assertThat(queue.getUids(), contains("appui-omod"));
+
+		finishPass.countDown();
+		pass.join(10000);
+		task.runForChanged();
+		assertThat(queue.getUids(), empty());
+	}
 }
@@ -7,20 +7,28 @@ import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
 import static org.hamcrest.core.AllOf.allOf;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.nullValue;
+import static org.openmrs.addonindex.TestUtil.getFileAsStream;
 import static org.openmrs.addonindex.TestUtil.getFileAsString;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
 import org.openmrs.addonindex.domain.AddOnVersion;
+import org.springframework.core.io.ByteArrayResource;
 
 public class FetchDetailsToIndexTest {
 	
 	@Test
 	public void testParsingConfigXmlForLanguages() throws Exception {
-		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null);
+		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null, null, new SimpleMeterRegistry());
 		AddOnVersion version = new AddOnVersion();
 		AddOnInfoAndVersions addOnInfoAndVersions = new AddOnInfoAndVersions();
-		task.handleConfigXml(getFileAsString("config.withNoRequirements.xml"), version);
+		task.handleConfigXml(getFileAsStream("config.withNoRequirements.xml"), version);
 		assertThat(version.getRequireOpenmrsVersion(), nullValue());
 		assertThat(version.getRequireModules(), nullValue());
 		assertThat(version.getSupportedLanguages(), contains("en", "fr", "de"));
@@ -28,20 +36,20 @@ public class FetchDetailsToIndexTest {
 	
 	@Test
 	public void testParsingConfigXmlForRequiredOpenmrsVersion() throws Exception {
-		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null);
+		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null, null, new SimpleMeterRegistry());
 		AddOnVersion version = new AddOnVersion();
 		AddOnInfoAndVersions addOnInfoAndVersions = new AddOnInfoAndVersions();
-		task.handleConfigXml(getFileAsString("config.withRequiredVersion.xml"), version);
+		task.handleConfigXml(getFileAsStream("config.withRequiredVersion.xml"), version);
 		assertThat(version.getRequireOpenmrsVersion(), is("1.11.3, 1.10.2 - 1.10.*, 1.9.9 - 1.9.*"));
 		assertThat(version.getRequireModules(), nullValue());
 	}
 	
 	@Test
 	public void testParsingConfigXmlForRequiredModuleVersion() throws Exception {
-		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null);
+		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null, null, new SimpleMeterRegistry());
 		AddOnVersion version = new AddOnVersion();
 		AddOnInfoAndVersions addOnInfoAndVersions = new AddOnInfoAndVersions();
-		task.handleConfigXml(getFileAsString("config.withRequiredModules.xml"), version);
+		task.handleConfigXml(getFileAsStream("config.withRequiredModules.xml"), version);
 		assertThat(version.getRequireOpenmrsVersion(), is("1.11.3, 1.10.2 - 1.10.*, 1.9.9 - 1.9.*"));
 		assertThat(version.getRequireModules().size(), is(2));
 		assertThat(version.getRequireModules(), hasItem(allOf(
@@ -56,36 +64,54 @@ public class FetchDetailsToIndexTest {
 
     @Test
 	public void testParsingConfigXmlForSettingModulePackageAndId() throws Exception {
-	    FetchDetailsToIndex task = new FetchDetailsToIndex(null, null);
+	    FetchDetailsToIndex task = new FetchDetailsToIndex(null, null, null, new SimpleMeterRegistry());
 	    AddOnVersion version = new AddOnVersion();
-	    task.handleConfigXml(getFileAsString("config.withRelativePathDtd.xml"), version);
+	    task.handleConfigXml(getFileAsStream("config.withRelativePathDtd.xml"), version);
 	    assertThat(version.getModulePackage(), is("org.openmrs.module.mdrtb"));
 	    assertThat(version.getModuleId(), is("mdrtb"));
 	}
 
     @Test
 	public void testParsingWithDoctypeRelativePath() throws Exception {
-		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null);
+		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null, null, new SimpleMeterRegistry());
 		AddOnVersion version = new AddOnVersion();
 		AddOnInfoAndVersions addOnInfoAndVersions = new AddOnInfoAndVersions();
-		task.handleConfigXml(getFileAsString("config.withRelativePathDtd.xml"), version);
+		task.handleConfigXml(getFileAsStream("config.withRelativePathDtd.xml"), version);
 		// just test that we could parse at all
 	}
 	
 	@Test
 	public void testParsingWithDoctypeRelativePathOnTwoLines() throws Exception {
-		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null);
+		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null, null, new SimpleMeterRegistry());
 		AddOnVersion version = new AddOnVersion();
-		task.handleConfigXml(getFileAsString("config.withRelativePathDtdOnTwoLines.xml"), version);
+		task.handleConfigXml(getFileAsStream("config.withRelativePathDtdOnTwoLines.xml"), version);
 		// just test that we could parse at all
 	}
 	
 	@Test
 	public void testParsingWithCommentedDoctype() throws Exception {
-		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null);
+		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null, null, new SimpleMeterRegistry());
 		AddOnVersion version = new AddOnVersion();
 		AddOnInfoAndVersions addOnInfoAndVersions = new AddOnInfoAndVersions();
-		task.handleConfigXml(getFileAsString("config.withCommentedDoctype.xml"), version);
+		task.handleConfigXml(getFileAsStream("config.withCommentedDoctype.xml"), version);
 		// just test that we could parse at all
 	}
+
+	@Test
+	public void testHandlingConfigXmlInOmod() throws Exception {
+		FetchDetailsToIndex task = new FetchDetailsToIndex(null, null, null, new SimpleMeterRegistry());
+		ByteArrayOutputStream omod = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(omod)) {
+			zip.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+			zip.write("Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+			zip.putNextEntry(new ZipEntry("config.xml"));
+			zip.write(getFileAsString("config.withRequiredModules.xml").getBytes(StandardCharsets.UTF_8));
+		}
+		AddOnVersion version = new AddOnVersion();
+		assertThat(task.handleConfigXmlIn(new ByteArrayResource(omod.toByteArray()), version), is(true));
+		assertThat(version.getRequireOpenmrsVersion(), is("1.11.3, 1.10.2 - 1.10.*, 1.9.9 - 1.9.*"));
+		assertThat(version.getRequireModules().size(), is(2));
+
+		assertThat(task.handleConfigXmlIn(new ByteArrayResource(new byte[0]), new AddOnVersion()), is(false));
+	}
 }
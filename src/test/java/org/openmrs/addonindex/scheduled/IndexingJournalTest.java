@@ -0,0 +1,81 @@
+package org.openmrs.addonindex.scheduled;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openmrs.addonindex.domain.AddOnInfoSummary;
+import org.openmrs.addonindex.domain.AddOnToIndex;
+import org.openmrs.addonindex.domain.IndexingStatus;
+import org.openmrs.addonindex.service.IndexingService;
+import org.openmrs.addonindex.service.LocalStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+
+@JsonTest
+public class IndexingJournalTest {
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testSaveAndRestore() throws Exception {
+		AddOnToIndex indexed = new AddOnToIndex();
+		indexed.setUid("indexed");
+		AddOnToIndex failed = new AddOnToIndex();
+		failed.setUid("failed");
+
+		IndexingStatus before = new IndexingStatus();
+		AddOnInfoSummary summary = new AddOnInfoSummary();
+		summary.setDownloadCountInLast30Days(42);
+		IndexingStatus.Status success = IndexingStatus.Status.success(summary);
+		success.setFingerprint(indexed.definitionFingerprint());
+		before.setStatus(indexed, success);
+		before.setStatus(failed, IndexingStatus.Status.error(new Exception("Not found")));
+		new IndexingJournal(serviceWith(before), store()).save();
+
+		IndexingStatus after = new IndexingStatus();
+		new IndexingJournal(serviceWith(after), store()).restore();
+
+		IndexingStatus.Status restored = after.getStatuses().get("indexed");
+		assertThat(restored.getLastIndexed().toInstant(), is(success.getLastIndexed().toInstant()));
+		assertThat(restored.getLastSuccess().toInstant(), is(success.getLastSuccess().toInstant()));
+		assertThat(restored.getDownloadCountInLast30Days(), is(42));
+		assertThat(restored.getFingerprint(), is(indexed.definitionFingerprint()));
+		assertThat(restored.getError(), nullValue());
+
+		restored = after.getStatuses().get("failed");
+		assertThat(restored.getConsecutiveErrors(), is(1));
+		assertThat(restored.getError(), notNullValue());
+		assertThat(restored.getLastSuccess(), nullValue());
+	}
+
+	@Test
+	public void testNothingToRestore() throws Exception {
+		IndexingStatus status = new IndexingStatus();
+		new IndexingJournal(serviceWith(status), store()).restore();
+		assertThat(status.getStatuses().isEmpty(), is(true));
+	}
+
+	private LocalStore store() {
+		return new LocalStore(objectMapper, directory.toString());
+	}
+
+	private IndexingService serviceWith(IndexingStatus status) {
+		IndexingService service = mock(IndexingService.class);
+		when(service.getIndexingStatus()).thenReturn(status);
+		return service;
+	}
+
+}
@@ -0,0 +1,74 @@
+package org.openmrs.addonindex.scheduled;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.addonindex.domain.AddOnInfoSummary;
+import org.openmrs.addonindex.domain.AddOnStatus;
+import org.openmrs.addonindex.domain.AddOnToIndex;
+import org.openmrs.addonindex.domain.IndexingStatus;
+
+public class IndexingPriorityTest {
+
+	private static final long HOUR = 3600000;
+
+	private final IndexingPriority priority = new IndexingPriority(2 * HOUR, 100, 6 * HOUR, 168 * HOUR, 3);
+
+	@Test
+	public void testDueForIndexing() throws Exception {
+		AddOnToIndex neverIndexed = addOn("never-indexed", AddOnStatus.ACTIVE);
+		AddOnToIndex popular = addOn("popular", AddOnStatus.ACTIVE);
+		AddOnToIndex unpopular = addOn("unpopular", AddOnStatus.ACTIVE);
+		AddOnToIndex deprecated = addOn("deprecated", AddOnStatus.DEPRECATED);
+		AddOnToIndex failing = addOn("failing", AddOnStatus.ACTIVE);
+
+		IndexingStatus statuses = new IndexingStatus();
+		statuses.setStatus(popular, success(500));
+		statuses.setStatus(unpopular, success(5));
+		statuses.setStatus(deprecated, success(500));
+		statuses.setStatus(failing, success(5));
+		statuses.setStatus(failing, IndexingStatus.Status.error(new Exception()));
+
+		OffsetDateTime nextPass = OffsetDateTime.now().plusHours(2);
+		assertThat(priority.dueForIndexing(Arrays.asList(unpopular, deprecated, failing, popular, neverIndexed), statuses,
+				nextPass), contains(neverIndexed, popular, failing));
+
+		OffsetDateTime inSixHours = OffsetDateTime.now().plusHours(6);
+		assertThat(priority.dueForIndexing(Arrays.asList(unpopular, deprecated, popular), statuses, inSixHours),
+				contains(popular, unpopular));
+	}
+
+	@Test
+	public void testStopRetryingAfterRepeatedErrors() throws Exception {
+		AddOnToIndex failing = addOn("failing", AddOnStatus.ACTIVE);
+		IndexingStatus statuses = new IndexingStatus();
+		for (int i = 0; i < 4; i++) {
+			statuses.setStatus(failing, IndexingStatus.Status.indexingNow());
+			statuses.setStatus(failing, IndexingStatus.Status.error(new Exception()));
+		}
+
+		IndexingStatus.Status status = statuses.getStatuses().get("failing");
+		assertThat(status.getConsecutiveErrors(), is(4));
+		assertThat(priority.isDue(failing, status, OffsetDateTime.now().plusHours(2)), is(false));
+		assertThat(priority.isDue(failing, status, OffsetDateTime.now().plusHours(6)), is(true));
+	}
+
+	private AddOnToIndex addOn(String uid, AddOnStatus status) {
+		AddOnToIndex addOn = new AddOnToIndex();
+		addOn.setUid(uid);
+		addOn.setStatus(status);
+		return addOn;
+	}
+
+	private IndexingStatus.Status success(int downloads) {
+		AddOnInfoSummary summary = new AddOnInfoSummary();
+		summary.setDownloadCountInLast30Days(downloads);
+		return IndexingStatus.Status.success(summary);
+	}
+
+}
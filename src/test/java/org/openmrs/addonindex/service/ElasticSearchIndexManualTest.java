@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -49,7 +50,7 @@ public class ElasticSearchIndexManualTest {
 	private ObjectMapper objectMapper;
 
 	@Test
-	public void testIndex() throws IOException {
+	public void testIndex() throws Exception {
 		AddOnVersion v = new AddOnVersion();
 		v.setVersion(new Version("1.0"));
 		v.setDownloadUri("http://www.google.com");
@@ -78,7 +79,7 @@ public class ElasticSearchIndexManualTest {
 	}
 
 	@Test
-	public void testSearch() throws IOException {
+	public void testSearch() throws Exception {
 		SearchResponse response = client.search(new SearchRequest(AddOnInfoAndVersions.ES_INDEX)
 						.source(new SearchSourceBuilder().query(QueryBuilders.fuzzyQuery("_all", "dictionary conc"))),
 				RequestOptions.DEFAULT);
@@ -117,7 +118,7 @@ public class ElasticSearchIndexManualTest {
 	}
 
 	@Test
-	public void testTag() throws IOException {
+	public void testTag() throws Exception {
 		SearchResponse response = client.search(new SearchRequest(AddOnInfoAndVersions.ES_INDEX)
 			.source(new SearchSourceBuilder()
 				.query(QueryBuilders.matchQuery("tags", "form-entry"))), RequestOptions.DEFAULT);
@@ -135,4 +136,17 @@ public class ElasticSearchIndexManualTest {
 			System.out.println(a.getDownloadCount() + "\t" + a.getSummary().getName());
 		}
 	}
+
+	@Test
+	public void testGetByUids() throws Exception {
+		Map<String, AddOnInfoAndVersions> found = elasticSearchIndex.getByUids(
+				Arrays.asList("testing-module", "fake-module"));
+		System.out.println("Found: " + found.keySet());
+	}
+
+	@Test
+	public void testForEachWithFields() throws Exception {
+		elasticSearchIndex.forEach(SuggestionTrie.SOURCE_FIELDS,
+				addOn -> System.out.println(addOn.getUid() + " " + addOn.getName() + " " + addOn.getVersions()));
+	}
 }
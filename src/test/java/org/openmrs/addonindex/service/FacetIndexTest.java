@@ -0,0 +1,127 @@
+package org.openmrs.addonindex.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.addonindex.domain.AddOnFilter;
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.AddOnInfoSummary;
+import org.openmrs.addonindex.domain.AddOnStatus;
+import org.openmrs.addonindex.domain.AddOnType;
+import org.openmrs.addonindex.domain.AddOnVersion;
+import org.openmrs.addonindex.domain.ResultsPage;
+import org.openmrs.addonindex.util.Version;
+
+public class FacetIndexTest {
+
+	private FacetIndex facetIndex;
+
+	@BeforeEach
+	public void setUp() {
+		facetIndex = new FacetIndex(null);
+		facetIndex.put(addOn("reporting", AddOnType.OMOD, AddOnStatus.ACTIVE, "reports", "1.9.0", "en", "fr"));
+		facetIndex.put(addOn("appui", AddOnType.OMOD, AddOnStatus.ACTIVE, "ui", "2.0.0", "en"));
+		facetIndex.put(addOn("xforms", AddOnType.OMOD, AddOnStatus.DEPRECATED, "forms", "1.6.0", "fr"));
+		facetIndex.put(addOn("conceptdictionary", AddOnType.OWA, AddOnStatus.ACTIVE, "ui", null));
+	}
+
+	@Test
+	public void testCombiningFilters() {
+		assertThat(facetIndex.uids(new AddOnFilter()).size(), is(4));
+		assertThat(facetIndex.uids(filter(AddOnType.OMOD, null, null, "fr", null)),
+				containsInAnyOrder("reporting", "xforms"));
+		assertThat(facetIndex.uids(filter(AddOnType.OMOD, null, AddOnStatus.ACTIVE, "fr", null)), contains("reporting"));
+		assertThat(facetIndex.uids(filter(null, "ui", null, null, null)), containsInAnyOrder("appui", "conceptdictionary"));
+		assertThat(facetIndex.uids(filter(null, null, null, "de", null)), empty());
+	}
+
+	@Test
+	public void testCoreVersionCompatibility() {
+		// a single version is the lowest it runs on, and no requirement runs anywhere
+		assertThat(facetIndex.uids(filter(null, null, null, null, "1.8.0")),
+				containsInAnyOrder("xforms", "conceptdictionary"));
+		assertThat(facetIndex.uids(filter(null, null, null, null, "2.1.0")),
+				containsInAnyOrder("reporting", "appui", "xforms", "conceptdictionary"));
+	}
+
+	@Test
+	public void testIndexingAgainReplacesFacets() {
+		facetIndex.put(addOn("xforms", AddOnType.OMOD, AddOnStatus.ACTIVE, "forms", "1.6.0", "es"));
+
+		assertThat(facetIndex.uids(filter(null, null, null, "fr", null)), contains("reporting"));
+		assertThat(facetIndex.uids(filter(null, null, null, "es", null)), contains("xforms"));
+		assertThat(facetIndex.uids(filter(null, null, AddOnStatus.DEPRECATED, null, null)), empty());
+	}
+
+	@Test
+	public void testCountingFacets() {
+		Map<String, Map<String, Long>> counts = facetIndex.count(filter(AddOnType.OMOD, null, null, null, null));
+
+		assertThat(counts.keySet(), contains("type", "tag", "status", "language"));
+		assertThat(counts.get("type"), is(Map.of("OMOD", 3L)));
+		// most common first, then by value
+		assertThat(counts.get("status").keySet(), contains("ACTIVE", "DEPRECATED"));
+		assertThat(counts.get("tag").keySet(), contains("forms", "reports", "ui"));
+		assertThat(counts.get("language"), is(Map.of("en", 2L, "fr", 2L)));
+
+		facetIndex.put(addOn("xforms", AddOnType.OMOD, AddOnStatus.ACTIVE, "forms", "1.6.0", "fr"));
+		counts = facetIndex.count(filter(null, "ui", null, null, null));
+		assertThat(counts.get("type"), is(Map.of("OMOD", 1L, "OWA", 1L)));
+		assertThat(counts.get("status"), is(Map.of("ACTIVE", 2L)));
+		assertThat(counts.get("tag"), is(Map.of("ui", 2L)));
+		assertThat(counts.get("language"), is(Map.of("en", 1L)));
+	}
+
+	@Test
+	public void testPagingByUidWithDeprecatedAndInactiveLast() {
+		facetIndex.put(addOn("atlas", AddOnType.OMOD, AddOnStatus.INACTIVE, "maps", "1.9.0", "en"));
+
+		ResultsPage<AddOnInfoSummary> first = facetIndex.list(filter(AddOnType.OMOD, null, null, null, null), 2, null);
+		assertThat(uids(first), contains("appui", "reporting"));
+
+		ResultsPage<AddOnInfoSummary> second = facetIndex.list(filter(AddOnType.OMOD, null, null, null, null), 2,
+				first.getNext());
+		assertThat(uids(second), contains("atlas", "xforms"));
+
+		ResultsPage<AddOnInfoSummary> third = facetIndex.list(filter(AddOnType.OMOD, null, null, null, null), 2,
+				second.getNext());
+		assertThat(third.getResults(), empty());
+		assertThat(third.getNext(), nullValue());
+	}
+
+	private AddOnFilter filter(AddOnType type, String tag, AddOnStatus status, String language, String coreVersion) {
+		return new AddOnFilter(type, tag, status, language, coreVersion);
+	}
+
+	private List<String> uids(ResultsPage<AddOnInfoSummary> page) {
+		return page.getResults().stream().map(AddOnInfoSummary::getUid).collect(Collectors.toList());
+	}
+
+	private AddOnInfoAndVersions addOn(String uid, AddOnType type, AddOnStatus status, String tag,
+	                                   String requireOpenmrsVersion, String... languages) {
+		AddOnVersion version = new AddOnVersion();
+		version.setVersion(new Version("1.0"));
+		version.setRequireOpenmrsVersion(requireOpenmrsVersion);
+		version.setSupportedLanguages(Arrays.asList(languages));
+
+		AddOnInfoAndVersions addOn = new AddOnInfoAndVersions();
+		addOn.setUid(uid);
+		addOn.setType(type);
+		addOn.setStatus(status);
+		addOn.setTags(Arrays.asList(tag));
+		addOn.addVersion(version);
+		return addOn;
+	}
+
+}
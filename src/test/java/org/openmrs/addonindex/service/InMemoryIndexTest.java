@@ -0,0 +1,252 @@
+package org.openmrs.addonindex.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.AddOnInfoSummary;
+import org.openmrs.addonindex.domain.AddOnInfoSummaryAndStats;
+import org.openmrs.addonindex.domain.AddOnStatus;
+import org.openmrs.addonindex.domain.AddOnType;
+import org.openmrs.addonindex.domain.AddOnVersion;
+import org.openmrs.addonindex.domain.ResultsPage;
+import org.openmrs.addonindex.util.Version;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+
+@JsonTest
+public class InMemoryIndexTest {
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@TempDir
+	Path directory;
+
+	private InMemoryIndex index;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		index = new InMemoryIndex(objectMapper, new LocalStore(objectMapper, directory.toString()));
+		index.index(addOn("org.openmrs.module.appointmentscheduling", "Appointment Scheduling",
+				"Lets you schedule appointments", AddOnStatus.ACTIVE, 300, "appointments"));
+		index.index(addOn("org.openmrs.module.appointmentschedulingui", "Appointment Scheduling UI",
+				"Old user interface", AddOnStatus.DEPRECATED, 500, "appointments"));
+		index.index(addOn("org.openmrs.module.reporting", "Reporting",
+				"Reports, including on appointment no-shows", AddOnStatus.ACTIVE, null, "reports"));
+		index.index(addOn("org.openmrs.module.htmlformentry", "HTML Form Entry",
+				"Forms", AddOnStatus.ACTIVE, 1000, "forms"));
+	}
+
+	@Test
+	public void testSearchRanksLikeElasticSearch() throws Exception {
+		assertThat(uids(index.search(null, "appointment", null)), contains(
+				"org.openmrs.module.appointmentscheduling",
+				"org.openmrs.module.reporting",
+				"org.openmrs.module.appointmentschedulingui"));
+
+		// an exact uid or tag beats matches in the name
+		assertThat(uids(index.search(null, "org.openmrs.module.reporting", null)), contains(
+				"org.openmrs.module.reporting"));
+		assertThat(uids(index.search(null, "reports", null)).get(0), is("org.openmrs.module.reporting"));
+
+		// prefix, and misspelling
+		assertThat(uids(index.search(null, "sched", null)), contains(
+				"org.openmrs.module.appointmentscheduling",
+				"org.openmrs.module.appointmentschedulingui"));
+		assertThat(uids(index.search(null, "reportng", null)), contains("org.openmrs.module.reporting"));
+
+		assertThat(index.search(null, "nothing-like-this", null), empty());
+	}
+
+	@Test
+	public void testFuzzyMatchingOnlyWhenThereAreFewMatches() throws Exception {
+		// every word of the query starts a word of the name
+		assertThat(uids(index.search(null, "Appointment Sched", null)), contains(
+				"org.openmrs.module.appointmentscheduling",
+				"org.openmrs.module.reporting",
+				"org.openmrs.module.appointmentschedulingui"));
+
+		index.index(addOn("org.openmrs.module.formtools", "Forn Tools", "Misspelled", AddOnStatus.ACTIVE, 0, "forms"));
+		assertThat(uids(index.search(null, "form", null)), contains(
+				"org.openmrs.module.htmlformentry",
+				"org.openmrs.module.formtools"));
+
+		for (int i = 1; i <= 4; i++) {
+			index.index(addOn("org.openmrs.module.form" + i, "Form " + i, "", AddOnStatus.ACTIVE, 0, "forms"));
+		}
+		assertThat(uids(index.search(null, "form", null)).contains("org.openmrs.module.formtools"), is(false));
+		assertThat(index.search(null, "form", null).size(), is(5));
+	}
+
+	@Test
+	public void testFilters() throws Exception {
+		assertThat(uids(index.search(AddOnType.OMOD, "appointment", "appointments")), contains(
+				"org.openmrs.module.appointmentscheduling",
+				"org.openmrs.module.appointmentschedulingui"));
+		assertThat(index.search(AddOnType.OWA, null, null), empty());
+		assertThat(index.search(null, null, null).size(), is(4));
+	}
+
+	@Test
+	public void testListingWithoutQueryPutsDeprecatedLast() throws Exception {
+		ResultsPage<AddOnInfoSummary> first = index.search(null, null, null, 2, null);
+		assertThat(uids(first.getResults()), contains(
+				"org.openmrs.module.appointmentscheduling",
+				"org.openmrs.module.htmlformentry"));
+		ResultsPage<AddOnInfoSummary> second = index.search(null, null, null, 2, first.getNext());
+		assertThat(uids(second.getResults()), contains(
+				"org.openmrs.module.reporting",
+				"org.openmrs.module.appointmentschedulingui"));
+	}
+
+	@Test
+	public void testPaging() throws Exception {
+		ResultsPage<AddOnInfoSummary> first = index.search(null, "appointment", null, 2, null);
+		assertThat(uids(first.getResults()), contains(
+				"org.openmrs.module.appointmentscheduling",
+				"org.openmrs.module.reporting"));
+		ResultsPage<AddOnInfoSummary> second = index.search(null, "appointment", null, 2, first.getNext());
+		assertThat(uids(second.getResults()), contains("org.openmrs.module.appointmentschedulingui"));
+		assertThat(second.getNext(), nullValue());
+
+		ResultsPage<AddOnInfoAndVersions> byType = index.getAllByType(AddOnType.OMOD, 3, null);
+		assertThat(byType.getResults().size(), is(3));
+		byType = index.getAllByType(AddOnType.OMOD, 3, byType.getNext());
+		assertThat(byType.getResults().get(0).getUid(), is("org.openmrs.module.reporting"));
+		assertThat(byType.getNext(), nullValue());
+
+		assertThrows(IllegalArgumentException.class, () -> index.getByTag("appointments", 1, first.getNext()));
+	}
+
+	@Test
+	public void testCountingFacetsOverAllPages() throws Exception {
+		ResultsPage<AddOnInfoSummary> page = index.search(null, "appointment", null, null, true, 1, null);
+
+		assertThat(page.getResults().size(), is(1));
+		assertThat(page.getFacets().get("type"), is(Map.of("OMOD", 3L)));
+		assertThat(page.getFacets().get("tag").keySet(), contains("appointments", "reports"));
+		assertThat(page.getFacets().get("status"), is(Map.of("ACTIVE", 2L, "DEPRECATED", 1L)));
+		assertThat(page.getFacets().get("language"), is(Collections.emptyMap()));
+
+		assertThat(index.search(null, "appointment", null, 1, null).getFacets(), nullValue());
+	}
+
+	@Test
+	public void testLookups() throws Exception {
+		assertThat(index.getByUid("org.openmrs.module.reporting").getName(), is("Reporting"));
+		assertThat(index.getByUid("org.openmrs.module.missing"), nullValue());
+		assertThat(index.getByModulePackage("org.openmrs.module.htmlformentry").getUid(),
+				is("org.openmrs.module.htmlformentry"));
+		assertThat(index.getByTag("appointments").size(), is(2));
+		assertThat(index.getAllByType(AddOnType.OMOD).size(), is(4));
+
+		List<String> top = index.getTopDownloaded().stream()
+				.map(AddOnInfoSummaryAndStats::getSummary)
+				.map(AddOnInfoSummary::getUid)
+				.collect(Collectors.toList());
+		assertThat(top, contains(
+				"org.openmrs.module.htmlformentry",
+				"org.openmrs.module.appointmentschedulingui",
+				"org.openmrs.module.appointmentscheduling",
+				"org.openmrs.module.reporting"));
+	}
+
+	@Test
+	public void testHandsOutCopies() throws Exception {
+		AddOnInfoSummary found = index.search(null, "reporting", null).iterator().next();
+		found.setName("Changed");
+		found.getTags().clear();
+		index.getTopDownloaded().get(0).getSummary().setName("Changed");
+
+		AddOnInfoSummary again = index.search(null, "reporting", null).iterator().next();
+		assertThat(again.getName(), is("Reporting"));
+		assertThat(again.getTags(), contains("reports"));
+		assertThat(index.getTopDownloaded().get(0).getSummary().getName(), is("HTML Form Entry"));
+	}
+
+	@Test
+	public void testReindexingReplacesTheDocument() throws Exception {
+		String generation = index.getGeneration();
+		index.index(addOn("org.openmrs.module.reporting", "Reporting Rest", "Reports over REST", AddOnStatus.ACTIVE, 5,
+				"reports"));
+
+		assertThat(index.getByUid("org.openmrs.module.reporting").getName(), is("Reporting Rest"));
+		assertThat(index.getGeneration().equals(generation), is(false));
+		List<String> exported = new ArrayList<>();
+		index.forEach(addOn -> exported.add(addOn.getName()));
+		assertThat(exported, containsInAnyOrder("Appointment Scheduling", "Appointment Scheduling UI", "Reporting Rest",
+				"HTML Form Entry"));
+		assertThat(uids(index.search(null, "appointment", null)), contains(
+				"org.openmrs.module.appointmentscheduling",
+				"org.openmrs.module.appointmentschedulingui"));
+	}
+
+	@Test
+	public void testUpdatingFields() throws Exception {
+		AddOnInfoAndVersions before = index.getByUid("org.openmrs.module.reporting");
+		index.updateFields("org.openmrs.module.reporting", Collections.singletonMap("downloadCountInLast30Days", 2000));
+
+		AddOnInfoAndVersions reporting = index.getByUid("org.openmrs.module.reporting");
+		assertThat(reporting.getDownloadCountInLast30Days(), is(2000));
+		assertThat(reporting.getVersions().size(), is(1));
+		assertThat(before.getDownloadCountInLast30Days(), nullValue());
+		assertThat(index.getTopDownloaded().get(0).getSummary().getUid(), is("org.openmrs.module.reporting"));
+		assertThrows(IllegalArgumentException.class,
+				() -> index.updateFields("org.openmrs.module.missing", Collections.emptyMap()));
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		index.save();
+
+		InMemoryIndex restored = new InMemoryIndex(objectMapper, new LocalStore(objectMapper, directory.toString()));
+		restored.restore();
+
+		AddOnInfoAndVersions reporting = restored.getByUid("org.openmrs.module.reporting");
+		assertThat(reporting.getDescription(), is("Reports, including on appointment no-shows"));
+		assertThat(reporting.getLatestVersion(), is(new Version("1.0")));
+		assertThat(uids(restored.search(null, "appointment", null)).size(), is(3));
+	}
+
+	private AddOnInfoAndVersions addOn(String uid, String name, String description, AddOnStatus status,
+	                                   Integer downloads, String tag) {
+		AddOnInfoAndVersions addOn = new AddOnInfoAndVersions();
+		addOn.setUid(uid);
+		addOn.setName(name);
+		addOn.setDescription(description);
+		addOn.setStatus(status);
+		addOn.setType(AddOnType.OMOD);
+		addOn.setTags(Arrays.asList(tag));
+		addOn.setDownloadCountInLast30Days(downloads);
+		AddOnVersion version = new AddOnVersion();
+		version.setVersion(new Version("1.0"));
+		version.setModulePackage(uid);
+		addOn.addVersion(version);
+		addOn.setDetailsBasedOnLatestVersion();
+		return addOn;
+	}
+
+	private List<String> uids(Collection<AddOnInfoSummary> results) {
+		return results.stream().map(AddOnInfoSummary::getUid).collect(Collectors.toList());
+	}
+
+}
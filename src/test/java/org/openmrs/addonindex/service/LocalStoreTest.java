@@ -0,0 +1,53 @@
+package org.openmrs.addonindex.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.openmrs.addonindex.TestUtil.getFileAsString;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openmrs.addonindex.domain.AddOnToIndex;
+import org.openmrs.addonindex.domain.AllAddOnsToIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+
+@JsonTest
+public class LocalStoreTest {
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testAddOnListSnapshotRoundTrip() throws Exception {
+		AllAddOnsToIndex original = objectMapper.readValue(getFileAsString("add-ons-to-index.json"),
+				AllAddOnsToIndex.class);
+
+		LocalStore store = new LocalStore(objectMapper, directory.toString());
+		store.write("add-ons-to-index.json", original);
+		AllAddOnsToIndex restored = store.read("add-ons-to-index.json", new TypeReference<AllAddOnsToIndex>() {}).get();
+
+		assertThat(restored.getUidsChangedFrom(original).isEmpty(), is(true));
+		assertThat(restored.getToIndex().size(), is(original.getToIndex().size()));
+		assertThat(restored.getLists(), is(original.getLists()));
+		for (AddOnToIndex addOn : original.getToIndex()) {
+			assertThat(restored.getAddOnByUid(addOn.getUid()).get().definitionFingerprint(),
+					is(addOn.definitionFingerprint()));
+		}
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		LocalStore store = new LocalStore(objectMapper, "");
+		store.write("anything.json", "anything");
+		assertThat(store.read("anything.json", new TypeReference<String>() {}), is(Optional.empty()));
+	}
+
+}
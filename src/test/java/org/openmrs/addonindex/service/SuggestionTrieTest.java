@@ -0,0 +1,74 @@
+package org.openmrs.addonindex.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.addonindex.domain.AddOnInfoAndVersions;
+import org.openmrs.addonindex.domain.AddOnSuggestion;
+
+public class SuggestionTrieTest {
+
+	private final SuggestionTrie trie = new SuggestionTrie.Builder(3)
+			.add(addOn("org.openmrs.module.appointmentscheduling", "appointmentscheduling", "Appointment Scheduling", 300,
+					"appointments"))
+			.add(addOn("org.openmrs.module.reporting", "reporting", "Reporting", 1000, "reports"))
+			.add(addOn("org.openmrs.module.reportingrest", "reportingrest", "Reporting REST", 50, "reports"))
+			.add(addOn("org.openmrs.module.htmlformentry", "htmlformentry", "HTML Form Entry", null, "forms"))
+			.build();
+
+	@Test
+	public void testMostDownloadedFirst() {
+		assertThat(uids(trie.lookup("rep", 10)), contains(
+				"org.openmrs.module.reporting",
+				"org.openmrs.module.reportingrest"));
+		assertThat(uids(trie.lookup("", 10)), contains(
+				"org.openmrs.module.reporting",
+				"org.openmrs.module.appointmentscheduling",
+				"org.openmrs.module.reportingrest"));
+		assertThat(uids(trie.lookup("rep", 1)), contains("org.openmrs.module.reporting"));
+	}
+
+	@Test
+	public void testMatchesWordsOfTheNameUidsModuleIdsAndTags() {
+		AddOnSuggestion sched = trie.lookup("SCHED", 10).get(0);
+		assertThat(sched.getText(), is("Appointment Scheduling"));
+		assertThat(sched.getUid(), is("org.openmrs.module.appointmentscheduling"));
+
+		assertThat(trie.lookup("org.openmrs.module.html", 10).get(0).getText(), is("org.openmrs.module.htmlformentry"));
+		assertThat(trie.lookup("htmlf", 10).get(0).getText(), is("htmlformentry"));
+		assertThat(trie.lookup("entr", 10).get(0).getText(), is("HTML Form Entry"));
+		assertThat(trie.lookup("appointments", 10).get(0).getText(), is("appointments"));
+
+		assertThat(trie.lookup("nothing", 10), empty());
+	}
+
+	@Test
+	public void testOneSuggestionPerAddOn() {
+		// matches the name, module id and tag of both
+		List<AddOnSuggestion> suggestions = trie.lookup("report", 10);
+		assertThat(uids(suggestions), contains("org.openmrs.module.reporting", "org.openmrs.module.reportingrest"));
+		assertThat(suggestions.get(0).getText(), is("reports"));
+	}
+
+	private AddOnInfoAndVersions addOn(String uid, String moduleId, String name, Integer downloads, String tag) {
+		AddOnInfoAndVersions addOn = new AddOnInfoAndVersions();
+		addOn.setUid(uid);
+		addOn.setModuleId(moduleId);
+		addOn.setName(name);
+		addOn.setTags(Arrays.asList(tag));
+		addOn.setDownloadCountInLast30Days(downloads);
+		return addOn;
+	}
+
+	private List<String> uids(List<AddOnSuggestion> suggestions) {
+		return suggestions.stream().map(AddOnSuggestion::getUid).collect(Collectors.toList());
+	}
+
+}